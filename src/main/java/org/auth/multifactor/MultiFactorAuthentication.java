@@ -2,7 +2,9 @@ package org.auth.multifactor;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
+@EnableScheduling
 @SpringBootApplication
 public class MultiFactorAuthentication {
     public static void main(String[] args) {
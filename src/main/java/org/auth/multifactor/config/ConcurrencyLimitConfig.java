@@ -0,0 +1,49 @@
+package org.auth.multifactor.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.auth.multifactor.controller.ConcurrencyLimitInterceptor;
+import org.auth.multifactor.util.AdaptiveConcurrencyLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+/**
+ * Puts an adaptive concurrency limit in front of the OTP endpoints, ahead of the rate limits.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "application.concurrency-limit", name = "enabled", havingValue = "true")
+public class ConcurrencyLimitConfig implements WebMvcConfigurer {
+
+    private final ConcurrencyLimitInterceptor concurrencyLimitInterceptor;
+
+    public ConcurrencyLimitConfig(@Value("${application.concurrency-limit.initial-limit}") int initialLimit,
+                                  @Value("${application.concurrency-limit.min-limit}") int minLimit,
+                                  @Value("${application.concurrency-limit.max-limit}") int maxLimit,
+                                  @Value("${application.concurrency-limit.backoff-ratio}") double backoffRatio,
+                                  @Value("${application.concurrency-limit.create-share}") double createShare,
+                                  @Value("${application.concurrency-limit.decrease-interval-ms}") long decreaseIntervalMs,
+                                  @Value("${application.concurrency-limit.validate-latency-threshold-ms}") long validateThresholdMs,
+                                  @Value("${application.concurrency-limit.create-latency-threshold-ms}") long createThresholdMs,
+                                  MeterRegistry meterRegistry) {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, backoffRatio,
+                createShare, Duration.ofMillis(decreaseIntervalMs).toNanos(), System::nanoTime);
+        Gauge.builder("otp.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit).register(meterRegistry);
+        Gauge.builder("otp.concurrency.in-flight", limiter, AdaptiveConcurrencyLimiter::getInFlight).register(meterRegistry);
+        this.concurrencyLimitInterceptor = new ConcurrencyLimitInterceptor(limiter,
+                Duration.ofMillis(validateThresholdMs).toNanos(), Duration.ofMillis(createThresholdMs).toNanos(), meterRegistry);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // registered before the rate limits, so shed requests do not consume rate limit tokens
+        registry.addInterceptor(concurrencyLimitInterceptor).addPathPatterns("/otp/**").order(-1);
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,27 @@
+package org.auth.multifactor.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exits as soon as the context has refreshed, before application runners touch Mongo, when
+ * {@code application.startup.exit-on-refresh} is set. Used for the training run that records a class data
+ * sharing archive. The flag is read at runtime rather than as a bean condition, so it also works with AOT.
+ */
+@Component
+public class ExitOnRefreshListener implements ApplicationListener<ContextRefreshedEvent> {
+
+    @Value("${application.startup.exit-on-refresh}")
+    private boolean exitOnRefresh;
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        if (exitOnRefresh) {
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        }
+    }
+
+}
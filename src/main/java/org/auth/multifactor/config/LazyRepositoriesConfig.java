@@ -0,0 +1,50 @@
+package org.auth.multifactor.config;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.DependencyDescriptor;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ContextAnnotationAutowireCandidateResolver;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactoryBean;
+import org.springframework.data.repository.Repository;
+
+/**
+ * Bootstraps the Mongo repositories lazily, which Spring Boot's repository auto-configuration cannot be told
+ * to do: repository beans are marked lazy-init and injected as lazy proxies, so they are created on first use
+ * and startup does not pay for deriving queries and repository proxies.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "application.startup", name = "lazy-repositories", havingValue = "true")
+public class LazyRepositoriesConfig {
+
+    @Bean
+    static BeanFactoryPostProcessor lazyRepositoriesPostProcessor() {
+        return beanFactory -> {
+            for (String name : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(name);
+                if (MongoRepositoryFactoryBean.class.getName().equals(definition.getBeanClassName())) {
+                    definition.setLazyInit(true);
+                }
+            }
+            if (beanFactory instanceof DefaultListableBeanFactory listableBeanFactory) {
+                listableBeanFactory.setAutowireCandidateResolver(new LazyRepositoryResolver());
+            }
+        };
+    }
+
+    /**
+     * Resolves repository injection points to lazy proxies, so their clients do not create them at startup.
+     */
+    private static class LazyRepositoryResolver extends ContextAnnotationAutowireCandidateResolver {
+
+        @Override
+        protected boolean isLazy(DependencyDescriptor descriptor) {
+            return super.isLazy(descriptor) || Repository.class.isAssignableFrom(descriptor.getDependencyType());
+        }
+
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,54 @@
+package org.auth.multifactor.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.auth.multifactor.service.mail.PooledJavaMailSender;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mail.MailProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+
+import java.util.Properties;
+
+/**
+ * Replaces Spring Boot's mail sender, which opens a new SMTP connection per send, with a pooled one.
+ * The {@code spring.mail.*} properties are applied the same way Boot applies them.
+ */
+@Configuration
+@EnableConfigurationProperties(MailProperties.class)
+@ConditionalOnProperty(prefix = "application.email.pool", name = "enabled", havingValue = "true")
+public class MailConfig {
+
+    @Bean
+    @Lazy
+    @ConditionalOnProperty(prefix = "spring.mail", name = "host")
+    public PooledJavaMailSender mailSender(MailProperties mailProperties,
+                                           @Value("${application.email.pool.max-connections}") int maxConnections,
+                                           @Value("${application.email.pool.max-messages-per-connection}") int maxMessagesPerConnection,
+                                           @Value("${application.email.pool.max-idle-seconds}") long maxIdleSeconds,
+                                           @Value("${application.email.pool.validate-after-idle-ms}") long validateAfterIdleMillis,
+                                           @Value("${application.email.pool.borrow-timeout-ms}") long borrowTimeoutMillis,
+                                           MeterRegistry meterRegistry) {
+        PooledJavaMailSender sender = new PooledJavaMailSender(maxConnections, maxMessagesPerConnection, maxIdleSeconds,
+                validateAfterIdleMillis, borrowTimeoutMillis, meterRegistry);
+        sender.setHost(mailProperties.getHost());
+        if (mailProperties.getPort() != null) {
+            sender.setPort(mailProperties.getPort());
+        }
+        sender.setUsername(mailProperties.getUsername());
+        sender.setPassword(mailProperties.getPassword());
+        sender.setProtocol(mailProperties.getProtocol());
+        if (mailProperties.getDefaultEncoding() != null) {
+            sender.setDefaultEncoding(mailProperties.getDefaultEncoding().name());
+        }
+        if (!mailProperties.getProperties().isEmpty()) {
+            Properties properties = new Properties();
+            properties.putAll(mailProperties.getProperties());
+            sender.setJavaMailProperties(properties);
+        }
+        return sender;
+    }
+
+}
@@ -0,0 +1,52 @@
+package org.auth.multifactor.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+
+import static java.time.ZoneOffset.UTC;
+
+/**
+ * All LocalDateTime fields hold UTC (they are built from {@code LocalDateTime.now(UTC)}), so they are stored as the
+ * BSON dates of those UTC instants instead of being shifted by the JVM's default zone. This keeps TTL indexes and
+ * comparisons with server time correct whatever zone the application runs in.
+ * <p>
+ * Documents written before these converters by an application running outside UTC hold instants shifted by that
+ * zone's offset, and are read back shifted by it; see the README for the upgrade.
+ */
+@Configuration
+public class MongoConfig {
+
+    @Bean
+    public MongoCustomConversions mongoCustomConversions() {
+        return new MongoCustomConversions(List.of(UtcLocalDateTimeWriter.INSTANCE, UtcLocalDateTimeReader.INSTANCE));
+    }
+
+    @WritingConverter
+    enum UtcLocalDateTimeWriter implements Converter<LocalDateTime, Date> {
+        INSTANCE;
+
+        @Override
+        public Date convert(LocalDateTime source) {
+            return Date.from(source.toInstant(UTC));
+        }
+    }
+
+    @ReadingConverter
+    enum UtcLocalDateTimeReader implements Converter<Date, LocalDateTime> {
+        INSTANCE;
+
+        @Override
+        public LocalDateTime convert(Date source) {
+            return LocalDateTime.ofInstant(source.toInstant(), UTC);
+        }
+    }
+
+}
\ No newline at end of file
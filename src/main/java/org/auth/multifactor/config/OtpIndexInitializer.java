@@ -0,0 +1,154 @@
+package org.auth.multifactor.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.auth.multifactor.model.EmailOtp;
+import org.auth.multifactor.model.Otp;
+import org.auth.multifactor.model.OutgoingMessage;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Creates and verifies the indexes of the one_time_password collection once all singletons are created, before the
+ * web server is started and so before the application takes traffic:
+ * a compound (email, expirationDateTime desc) index backing the latest-code lookup, and a TTL index
+ * that purges codes, used or not, once they are past their expiration by the configured grace period.
+ * Optionally checks that the lookup's query plan is index-backed. With the per-email layout, otp_by_email
+ * gets the same TTL index on its expiration field, and with the outbox enabled, outgoing_message gets
+ * its poll, claim and retention indexes.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "application.mongo.indexes", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class OtpIndexInitializer implements SmartInitializingSingleton {
+
+    static final String LOOKUP_INDEX = "email_1_expirationDateTime_-1";
+    static final String TTL_INDEX = "expirationDateTime_ttl";
+    static final String OUTBOX_DUE_INDEX = "status_1_nextAttemptDateTime_1";
+    static final String OUTBOX_CLAIM_INDEX = "claimId_1";
+    static final String OUTBOX_TTL_INDEX = "finishedDateTime_ttl";
+
+    public enum PlanCheck {
+        OFF, LOG, FAIL
+    }
+
+    @Value("${application.mongo.indexes.ttl-grace-minutes}")
+    private Long ttlGraceMinutes;
+    @Value("${application.mongo.indexes.plan-check}")
+    private PlanCheck planCheck;
+    @Value("${application.otp-store.layout}")
+    private String storeLayout;
+    @Value("${application.outbox.enabled}")
+    private boolean outboxEnabled;
+    @Value("${application.outbox.finished-retention-hours}")
+    private Long outboxRetentionHours;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        IndexOperations indexOps = mongoTemplate.indexOps(Otp.class);
+
+        indexOps.ensureIndex(new Index()
+                .on("email", Sort.Direction.ASC)
+                .on("expirationDateTime", Sort.Direction.DESC)
+                .named(LOOKUP_INDEX));
+        ensureTtlIndex(Otp.class, "expirationDateTime", TTL_INDEX, Duration.ofMinutes(ttlGraceMinutes));
+
+        List<String> indexNames = indexOps.getIndexInfo().stream().map(IndexInfo::getName).toList();
+        if (!indexNames.containsAll(List.of(LOOKUP_INDEX, TTL_INDEX))) {
+            throw new IllegalStateException("Missing indexes on " + mongoTemplate.getCollectionName(Otp.class) + ", found: " + indexNames);
+        }
+        log.info("Verified indexes on {}: {}", mongoTemplate.getCollectionName(Otp.class), indexNames);
+
+        if (planCheck != PlanCheck.OFF) {
+            checkLookupPlan();
+        }
+
+        if ("per-email".equals(storeLayout)) {
+            ensureTtlIndex(EmailOtp.class, EmailOtp.EXPIRATION, TTL_INDEX, Duration.ofMinutes(ttlGraceMinutes));
+            log.info("Verified TTL index on {}", mongoTemplate.getCollectionName(EmailOtp.class));
+        }
+
+        if (outboxEnabled) {
+            ensureOutboxIndexes();
+        }
+    }
+
+    /**
+     * Backs the dispatcher's due-message poll and claim lookup, and purges SENT and FAILED messages after the
+     * retention period; only those have a finishedDateTime, so pending messages are never expired.
+     */
+    private void ensureOutboxIndexes() {
+        IndexOperations indexOps = mongoTemplate.indexOps(OutgoingMessage.class);
+        indexOps.ensureIndex(new Index()
+                .on("status", Sort.Direction.ASC)
+                .on("nextAttemptDateTime", Sort.Direction.ASC)
+                .named(OUTBOX_DUE_INDEX));
+        // claimId is unset once a result is recorded, so a sparse index stays small
+        indexOps.ensureIndex(new Index().on("claimId", Sort.Direction.ASC).sparse().named(OUTBOX_CLAIM_INDEX));
+        ensureTtlIndex(OutgoingMessage.class, "finishedDateTime", OUTBOX_TTL_INDEX, Duration.ofHours(outboxRetentionHours));
+        log.info("Verified indexes on {}", mongoTemplate.getCollectionName(OutgoingMessage.class));
+    }
+
+    private void ensureTtlIndex(Class<?> entityClass, String field, String name, Duration expireAfter) {
+        IndexOperations indexOps = mongoTemplate.indexOps(entityClass);
+        Optional<IndexInfo> existing = indexOps.getIndexInfo().stream()
+                .filter(index -> name.equals(index.getName()))
+                .findFirst();
+
+        if (existing.isEmpty()) {
+            indexOps.ensureIndex(new Index().on(field, Sort.Direction.ASC).expire(expireAfter).named(name));
+        } else if (!existing.get().getExpireAfter().equals(Optional.of(expireAfter))) {
+            // changing expireAfterSeconds through createIndexes is rejected as an options conflict
+            mongoTemplate.executeCommand(new Document("collMod", mongoTemplate.getCollectionName(entityClass))
+                    .append("index", new Document("name", name).append("expireAfterSeconds", expireAfter.toSeconds())));
+            log.info("Updated TTL grace period of {} to {}", name, expireAfter);
+        }
+    }
+
+    private void checkLookupPlan() {
+        Document explain = mongoTemplate.executeCommand(new Document("explain",
+                new Document("find", mongoTemplate.getCollectionName(Otp.class))
+                        .append("filter", new Document("email", "index-check@localhost"))
+                        .append("sort", new Document("expirationDateTime", -1))
+                        .append("limit", 1))
+                .append("verbosity", "queryPlanner"));
+        Object winningPlan = explain.get("queryPlanner", Document.class).get("winningPlan");
+
+        if (!hasStage(winningPlan, "IXSCAN") || hasStage(winningPlan, "COLLSCAN") || hasStage(winningPlan, "SORT")) {
+            String message = "Latest OTP lookup is not index-backed, winning plan: " + winningPlan;
+            if (planCheck == PlanCheck.FAIL) {
+                throw new IllegalStateException(message);
+            }
+            log.warn(message);
+        } else {
+            log.info("Latest OTP lookup is index-backed");
+        }
+    }
+
+    private static boolean hasStage(Object plan, String stage) {
+        if (plan instanceof Document document) {
+            return stage.equals(document.get("stage"))
+                    || document.values().stream().anyMatch(value -> hasStage(value, stage));
+        }
+        if (plan instanceof List<?> list) {
+            return list.stream().anyMatch(value -> hasStage(value, stage));
+        }
+        return false;
+    }
+
+}
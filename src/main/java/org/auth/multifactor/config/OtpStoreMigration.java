@@ -0,0 +1,66 @@
+package org.auth.multifactor.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.auth.multifactor.model.EmailOtp;
+import org.auth.multifactor.model.Otp;
+import org.bson.Document;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static java.time.ZoneOffset.UTC;
+import static org.auth.multifactor.model.EmailOtp.*;
+
+/**
+ * Copies the latest unexpired code of every email from one_time_password into otp_by_email, server side,
+ * so the per-email layout can be switched on without invalidating codes already sent. Documents already
+ * in otp_by_email are kept, which makes the migration safe to re-run while both layouts are deployed.
+ * Expired codes are not copied; the old collection empties itself through its TTL index.
+ */
+@Slf4j
+@Component
+@Order(1)
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "application.otp-store", name = "migrate", havingValue = "true")
+public class OtpStoreMigration implements ApplicationRunner {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        String source = mongoTemplate.getCollectionName(Otp.class);
+        String target = mongoTemplate.getCollectionName(EmailOtp.class);
+        Object now = mongoTemplate.getConverter().convertToMongoType(LocalDateTime.now(UTC));
+
+        List<Document> pipeline = List.of(
+                new Document("$match", new Document("expirationDateTime", new Document("$gte", now))),
+                // served by the (email, expirationDateTime desc) lookup index
+                new Document("$sort", new Document("email", 1).append("expirationDateTime", -1)),
+                new Document("$group", new Document("_id", "$email")
+                        .append(HASH, new Document("$first", "$otp"))
+                        .append(SALT, new Document("$first", "$salt"))
+                        .append(HASH_ALGORITHM, new Document("$first", "$hashAlgorithm"))
+                        .append(HASH_PARAMETERS, new Document("$first", "$hashParameters"))
+                        .append(EXPIRATION, new Document("$first", "$expirationDateTime"))
+                        .append(USED, new Document("$first", "$isUsed"))),
+                new Document("$merge", new Document("into", target)
+                        .append("on", "_id")
+                        .append("whenMatched", "keepExisting")
+                        .append("whenNotMatched", "insert")));
+
+        mongoTemplate.execute(source, collection -> {
+            collection.aggregate(pipeline).allowDiskUse(true).toCollection();
+            return null;
+        });
+        log.info("Migrated active codes from {} to {}, {} now holds {} documents",
+                source, target, target, mongoTemplate.getCollection(target).estimatedDocumentCount());
+    }
+
+}
\ No newline at end of file
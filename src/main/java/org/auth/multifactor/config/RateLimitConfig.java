@@ -0,0 +1,49 @@
+package org.auth.multifactor.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.auth.multifactor.controller.RateLimitInterceptor;
+import org.auth.multifactor.util.RateLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Puts per-client and per-email token buckets in front of the OTP endpoints.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "application.rate-limit", name = "enabled", havingValue = "true")
+public class RateLimitConfig implements WebMvcConfigurer {
+
+    private final RateLimitInterceptor rateLimitInterceptor;
+
+    public RateLimitConfig(@Value("${application.rate-limit.email.capacity}") int emailCapacity,
+                           @Value("${application.rate-limit.email.refill-per-minute}") int emailRefillPerMinute,
+                           @Value("${application.rate-limit.client.capacity}") int clientCapacity,
+                           @Value("${application.rate-limit.client.refill-per-minute}") int clientRefillPerMinute,
+                           @Value("${application.rate-limit.maximum-keys}") long maximumKeys,
+                           MeterRegistry meterRegistry) {
+        this.rateLimitInterceptor = new RateLimitInterceptor(
+                new RateLimiter(emailCapacity, emailRefillPerMinute, maximumKeys),
+                new RateLimiter(clientCapacity, clientRefillPerMinute, maximumKeys),
+                meterRegistry);
+    }
+
+    /**
+     * Shared with controllers that take recipients from the body, so they draw from the same email buckets.
+     */
+    @Bean
+    public RateLimitInterceptor rateLimitInterceptor() {
+        return rateLimitInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(rateLimitInterceptor).addPathPatterns("/otp/**");
+    }
+
+}
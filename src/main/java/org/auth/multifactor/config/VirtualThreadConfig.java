@@ -0,0 +1,40 @@
+package org.auth.multifactor.config;
+
+import org.auth.multifactor.util.VirtualThreads;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs every Tomcat request, and so the repository and mail calls made from it, on its own virtual thread.
+ * JavaMail's SMTP transport holds monitors around socket I/O, which would pin the carrier thread for a whole
+ * SMTP round trip, so mail is handed to a small platform thread pool while the virtual thread parks.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "application.threads", name = "virtual", havingValue = "true")
+public class VirtualThreadConfig {
+
+    public static final String MAIL_SEND_EXECUTOR = "mailSendExecutor";
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        ExecutorService executor = VirtualThreads.newVirtualThreadPerTaskExecutor();
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    @Bean(name = MAIL_SEND_EXECUTOR)
+    public ExecutorService mailSendExecutor(@Value("${application.threads.mail-platform-threads}") int threads) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("mail-send-");
+        threadFactory.setDaemon(true);
+        return Executors.newFixedThreadPool(threads, threadFactory);
+    }
+
+}
@@ -0,0 +1,44 @@
+package org.auth.multifactor.controller;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import lombok.RequiredArgsConstructor;
+import org.auth.multifactor.service.ChallengeOtpService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Replaces {@link OtpController} in stateless mode: create returns a challenge, which validate expects back
+ * with the code. Batch creation is not available in this mode.
+ */
+@Validated
+@RestController
+@RequestMapping("/otp")
+@RequiredArgsConstructor
+@Profile("!reactive")
+@ConditionalOnProperty(prefix = "application.challenge", name = "enabled", havingValue = "true")
+public class ChallengeOtpController {
+
+    private final ChallengeOtpService challengeOtpServiceImpl;
+
+    @PostMapping(path = "/create", consumes = {MediaType.APPLICATION_FORM_URLENCODED_VALUE})
+    public ResponseEntity<String> create(@Valid @RequestParam @NotBlank @Email String email) {
+        return OtpResponses.challenged(challengeOtpServiceImpl.create(email));
+    }
+
+    @PostMapping(path = "/validate", consumes = {MediaType.APPLICATION_FORM_URLENCODED_VALUE})
+    public ResponseEntity<String> validate(@Valid @RequestParam @NotBlank @Email String email,
+                                           @Valid @RequestParam @NotBlank String otp,
+                                           @Valid @RequestParam @NotBlank String challenge) {
+        return OtpResponses.validated(challengeOtpServiceImpl.validate(email, otp, challenge));
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,66 @@
+package org.auth.multifactor.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.auth.multifactor.service.exception.ServiceUnavailableException;
+import org.auth.multifactor.util.AdaptiveConcurrencyLimiter;
+import org.auth.multifactor.util.AdaptiveConcurrencyLimiter.Priority;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Sheds {@code /otp} controller requests with 503 once the adaptive in-flight limit is reached, instead of letting them queue
+ * in Tomcat while Mongo or the hashing pool is saturated. Validations have priority: creates only get a share of
+ * the limit, so users already holding a code can still log in under load.
+ */
+public class ConcurrencyLimitInterceptor implements HandlerInterceptor {
+
+    private static final String START_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".start";
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final long validateThresholdNanos;
+    private final long createThresholdNanos;
+    private final MeterRegistry meterRegistry;
+
+    public ConcurrencyLimitInterceptor(AdaptiveConcurrencyLimiter limiter, long validateThresholdNanos,
+                                       long createThresholdNanos, MeterRegistry meterRegistry) {
+        this.limiter = limiter;
+        this.validateThresholdNanos = validateThresholdNanos;
+        this.createThresholdNanos = createThresholdNanos;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        String operation = operation(request);
+        if (!limiter.tryAcquire("validate".equals(operation) ? Priority.HIGH : Priority.LOW)) {
+            meterRegistry.counter("otp.concurrency.rejected", "operation", operation).increment();
+            throw new ServiceUnavailableException("Concurrency limit of " + limiter.getLimit() + " reached, rejected " + operation, 1);
+        }
+        request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(START_ATTRIBUTE) instanceof Long start) {
+            long latency = System.nanoTime() - start;
+            long threshold = "validate".equals(operation(request)) ? validateThresholdNanos : createThresholdNanos;
+            limiter.release(latency > threshold || ex != null || response.getStatus() >= 500);
+        }
+    }
+
+    /**
+     * The last segment of the matched mapping, so unmapped paths cannot add meter tags.
+     */
+    private static String operation(HttpServletRequest request) {
+        String pattern = String.valueOf(request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE));
+        return pattern.substring(pattern.lastIndexOf('/') + 1);
+    }
+
+}
\ No newline at end of file
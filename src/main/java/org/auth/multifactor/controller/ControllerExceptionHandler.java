@@ -1,7 +1,12 @@
 package org.auth.multifactor.controller;
 
 import jakarta.validation.ConstraintViolationException;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.auth.multifactor.service.exception.ServiceUnavailableException;
+import org.auth.multifactor.service.exception.TooManyRequestsException;
+import org.auth.multifactor.util.StackTraceSampler;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -12,15 +17,37 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExcep
 
 @Slf4j
 @ControllerAdvice
+@RequiredArgsConstructor
+@Profile("!reactive")
 public class ControllerExceptionHandler extends ResponseEntityExceptionHandler {
 
+    private final StackTraceSampler stackTraceSampler;
+
     @ExceptionHandler(value = {ConstraintViolationException.class})
     protected ResponseEntity<Object> handleConstraintViolationException(ConstraintViolationException ex, WebRequest request) {
-        log.error(ex.getMessage(), ex);
+        logClientError(ex);
 
         return handleExceptionInternal(ex, ex.getMessage(), new HttpHeaders(), HttpStatus.BAD_REQUEST, request);
     }
 
+    @ExceptionHandler(value = {ServiceUnavailableException.class})
+    protected ResponseEntity<Object> handleServiceUnavailableException(ServiceUnavailableException ex, WebRequest request) {
+        log.warn(ex.getMessage());
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()));
+        return handleExceptionInternal(ex, ex.getMessage(), headers, HttpStatus.SERVICE_UNAVAILABLE, request);
+    }
+
+    @ExceptionHandler(value = {TooManyRequestsException.class})
+    protected ResponseEntity<Object> handleTooManyRequestsException(TooManyRequestsException ex, WebRequest request) {
+        log.warn(ex.getMessage());
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()));
+        return handleExceptionInternal(ex, ex.getMessage(), headers, HttpStatus.TOO_MANY_REQUESTS, request);
+    }
+
     @ExceptionHandler(value = {Exception.class})
     protected ResponseEntity<Object> handleGenericException(Exception ex, WebRequest request) {
         log.error(ex.getMessage(), ex);
@@ -28,4 +55,16 @@ public class ControllerExceptionHandler extends ResponseEntityExceptionHandler {
         return handleExceptionInternal(ex, ex.getMessage(), new HttpHeaders(), HttpStatus.INTERNAL_SERVER_ERROR, request);
     }
 
+    /**
+     * Client errors are the caller's problem and can arrive in floods, so only a sample carries a stack trace.
+     */
+    private void logClientError(Exception ex) {
+        StackTraceSampler.Sample sample = stackTraceSampler.sample(ex);
+        if (sample.logStackTrace()) {
+            log.warn("{} ({} similar errors since the last stack trace)", ex.getMessage(), sample.suppressed(), ex);
+        } else {
+            log.debug(ex.getMessage());
+        }
+    }
+
 }
\ No newline at end of file
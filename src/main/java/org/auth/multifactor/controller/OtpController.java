@@ -2,54 +2,88 @@ package org.auth.multifactor.controller;
 
 
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
+import org.auth.multifactor.service.OtpCreationResult;
 import org.auth.multifactor.service.OtpService;
-import org.springframework.http.HttpStatus;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import static java.lang.String.format;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.auth.multifactor.service.enumeration.OtpCreationStatus.INVALID_EMAIL;
+import static org.auth.multifactor.service.enumeration.OtpCreationStatus.RATE_LIMITED;
 
 @Validated
 @RestController
 @RequestMapping("/otp")
 @RequiredArgsConstructor
+@Profile("!reactive")
+@ConditionalOnProperty(prefix = "application.challenge", name = "enabled", havingValue = "false", matchIfMissing = true)
 public class OtpController {
 
+    public static final int MAX_BATCH_SIZE = 1000;
+
     private final OtpService otpServiceImpl;
+    private final Validator validator;
+    private final ObjectProvider<RateLimitInterceptor> rateLimitInterceptor;
 
     @PostMapping(path = "/create", consumes = {MediaType.APPLICATION_FORM_URLENCODED_VALUE})
     public ResponseEntity<String> create(@Valid @RequestParam @NotBlank @Email String email) {
         otpServiceImpl.create(email);
 
-        return ResponseEntity.status(HttpStatus.CREATED).body(format("One Time Password sent to email: %s", email));
+        return OtpResponses.created();
+    }
+
+    /**
+     * Issues codes to a JSON array of emails. Invalid emails, and emails that have used up their {@code create}
+     * rate limit bucket, are reported without failing the rest of the batch.
+     */
+    @PostMapping(path = "/create/batch", consumes = {MediaType.APPLICATION_JSON_VALUE}, produces = {MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<List<OtpCreationResult>> createBatch(@RequestBody @NotEmpty @Size(max = MAX_BATCH_SIZE) List<String> emails) {
+        List<String> distinctEmails = emails.stream().distinct().toList();
+        List<String> validEmails = distinctEmails.stream()
+                .filter(email -> validator.validate(new BatchEmail(email)).isEmpty())
+                .toList();
+        RateLimitInterceptor limiter = rateLimitInterceptor.getIfAvailable();
+        Map<Boolean, List<String>> allowed = validEmails.stream()
+                .collect(Collectors.partitioningBy(email -> limiter == null || limiter.tryAcquireEmail("create", email)));
+
+        Map<String, OtpCreationResult> created = otpServiceImpl.create(allowed.get(true)).stream()
+                .collect(Collectors.toMap(OtpCreationResult::email, Function.identity()));
+        Set<String> rateLimited = Set.copyOf(allowed.get(false));
+        List<OtpCreationResult> results = distinctEmails.stream()
+                .map(email -> created.getOrDefault(email,
+                        new OtpCreationResult(email, rateLimited.contains(email) ? RATE_LIMITED : INVALID_EMAIL)))
+                .toList();
+
+        return OtpResponses.createdBatch(results);
     }
 
     @PostMapping(path = "/validate", consumes = {MediaType.APPLICATION_FORM_URLENCODED_VALUE})
     public ResponseEntity<String> validate(@Valid @RequestParam @NotBlank @Email String email,
                                            @Valid @RequestParam @NotBlank String otp) {
-        ResponseEntity<String> response;
-
-        switch (otpServiceImpl.validate(email, otp)) {
-            case NOT_FOUND -> response = ResponseEntity.ok(format("Cannot find user with email: %s", email));
-            case USED ->
-                    response = ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(format("Code was already used for email: %s", email)); // HTTP 422
-            case EXPIRED ->
-                    response = ResponseEntity.status(HttpStatus.GONE).body(format("Code has expired for email: %s", email)); // HTTP 410
-            case INVALID ->
-                    response = ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(format("Invalid code for email: %s", email)); // HTTP 401
-            case VALID -> response = ResponseEntity.ok(format("Code confirmed for user with email: %s", email));
-            default -> response = ResponseEntity.noContent().build();
-        }
-
-        return response;
+        return OtpResponses.validated(otpServiceImpl.validate(email, otp));
+    }
+
+    private record BatchEmail(@NotBlank @Email String value) {
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+package org.auth.multifactor.controller;
+
+import org.auth.multifactor.service.OtpCreationResult;
+import org.auth.multifactor.service.enumeration.OtpCreationStatus;
+import org.auth.multifactor.service.enumeration.OtpValidationStatus;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Response bodies shared by the servlet and reactive OTP controllers. Single-code responses are built once per
+ * status as small JSON documents with their content type preset, so the hot path neither formats strings nor
+ * negotiates a converter. Response entities are immutable and safe to share between requests.
+ */
+public final class OtpResponses {
+
+    private static final ResponseEntity<String> CREATED = ResponseEntity.status(HttpStatus.CREATED)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(body("CREATED", "One Time Password sent"));
+
+    private static final ResponseEntity<String> ALREADY_ENROLLED = ResponseEntity.status(HttpStatus.CONFLICT)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(body("ALREADY_ENROLLED", "Email is already enrolled"));
+
+    private static final Map<OtpValidationStatus, ResponseEntity<String>> VALIDATED = new EnumMap<>(OtpValidationStatus.class);
+    private static final Map<OtpValidationStatus, ResponseEntity<String>> OWNERSHIP_NOT_PROVEN = new EnumMap<>(OtpValidationStatus.class);
+
+    static {
+        VALIDATED.put(OtpValidationStatus.NOT_FOUND, validated(HttpStatus.OK, OtpValidationStatus.NOT_FOUND, "Cannot find code for email"));
+        VALIDATED.put(OtpValidationStatus.USED, validated(HttpStatus.UNPROCESSABLE_ENTITY, OtpValidationStatus.USED, "Code was already used")); // HTTP 422
+        VALIDATED.put(OtpValidationStatus.EXPIRED, validated(HttpStatus.GONE, OtpValidationStatus.EXPIRED, "Code has expired")); // HTTP 410
+        VALIDATED.put(OtpValidationStatus.INVALID, validated(HttpStatus.UNAUTHORIZED, OtpValidationStatus.INVALID, "Invalid code")); // HTTP 401
+        VALIDATED.put(OtpValidationStatus.VALID, validated(HttpStatus.OK, OtpValidationStatus.VALID, "Code confirmed"));
+        for (OtpValidationStatus status : OtpValidationStatus.values()) {
+            OWNERSHIP_NOT_PROVEN.put(status, validated(HttpStatus.FORBIDDEN, status, "A valid emailed code is required")); // HTTP 403
+        }
+    }
+
+    private OtpResponses() {
+    }
+
+    public static ResponseEntity<String> created() {
+        return CREATED;
+    }
+
+    /**
+     * 201 with the challenge to present on validation, which callers must keep alongside the email.
+     */
+    public static ResponseEntity<String> challenged(String challenge) {
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body("{\"status\":\"CREATED\",\"message\":\"One Time Password sent\",\"challenge\":\"" + challenge + "\"}");
+    }
+
+    /**
+     * 201 when every code was issued, 207 when some emails failed.
+     */
+    public static ResponseEntity<List<OtpCreationResult>> createdBatch(List<OtpCreationResult> results) {
+        boolean allCreated = results.stream().allMatch(result -> result.status() == OtpCreationStatus.CREATED);
+        return ResponseEntity.status(allCreated ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS).body(results);
+    }
+
+    /**
+     * 201 with the otpauth URI of the new secret, returned only once.
+     */
+    public static ResponseEntity<Map<String, String>> enrolled(String otpauthUri) {
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Map.of("status", "ENROLLED", "otpauthUri", otpauthUri));
+    }
+
+    public static ResponseEntity<String> alreadyEnrolled() {
+        return ALREADY_ENROLLED;
+    }
+
+    /**
+     * 403 carrying the status of the emailed code that failed to prove ownership of the email.
+     */
+    public static ResponseEntity<String> ownershipNotProven(OtpValidationStatus status) {
+        return OWNERSHIP_NOT_PROVEN.get(status);
+    }
+
+    public static ResponseEntity<String> validated(OtpValidationStatus status) {
+        return VALIDATED.getOrDefault(status, ResponseEntity.noContent().build());
+    }
+
+    private static ResponseEntity<String> validated(HttpStatus httpStatus, OtpValidationStatus status, String message) {
+        return ResponseEntity.status(httpStatus).contentType(MediaType.APPLICATION_JSON).body(body(status.name(), message));
+    }
+
+    private static String body(String status, String message) {
+        return "{\"status\":\"" + status + "\",\"message\":\"" + message + "\"}";
+    }
+
+}
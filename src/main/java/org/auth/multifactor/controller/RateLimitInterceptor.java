@@ -0,0 +1,83 @@
+package org.auth.multifactor.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.auth.multifactor.service.exception.TooManyRequestsException;
+import org.auth.multifactor.util.RateLimiter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rejects {@code /otp} controller requests once the client address or the email has used up its bucket for the operation,
+ * before the controller does any hashing, database or mail work.
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private final RateLimiter emailLimiter;
+    private final RateLimiter clientLimiter;
+    private final MeterRegistry meterRegistry;
+
+    public RateLimitInterceptor(RateLimiter emailLimiter, RateLimiter clientLimiter, MeterRegistry meterRegistry) {
+        this.emailLimiter = emailLimiter;
+        this.clientLimiter = clientLimiter;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        String operation = operation(request);
+
+        check(clientLimiter, operation + ":" + request.getRemoteAddr(), operation, "client");
+
+        String email = request.getParameter("email");
+        if (email != null && !email.isBlank()) {
+            check(emailLimiter, emailKey(operation, email), operation, "email");
+        }
+        return true;
+    }
+
+    /**
+     * Takes a token from the email bucket of the operation for a recipient that is not a request parameter,
+     * such as one address of a batch body.
+     *
+     * @return false when the email has used up its bucket
+     */
+    public boolean tryAcquireEmail(String operation, String email) {
+        if (emailLimiter.tryAcquire(emailKey(operation, email)) > 0) {
+            meterRegistry.counter("otp.rate-limit.rejected", "operation", operation, "key", "email").increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * The last segment of the matched mapping rather than of the request path, so unmapped paths cannot add
+     * buckets or meter tags.
+     */
+    private static String operation(HttpServletRequest request) {
+        String pattern = String.valueOf(request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE));
+        return pattern.substring(pattern.lastIndexOf('/') + 1);
+    }
+
+    private static String emailKey(String operation, String email) {
+        return operation + ":" + email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private void check(RateLimiter limiter, String key, String operation, String dimension) {
+        long waitNanos = limiter.tryAcquire(key);
+        if (waitNanos > 0) {
+            meterRegistry.counter("otp.rate-limit.rejected", "operation", operation, "key", dimension).increment();
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+            throw new TooManyRequestsException("Too many " + operation + " requests per " + dimension, retryAfterSeconds);
+        }
+    }
+
+}
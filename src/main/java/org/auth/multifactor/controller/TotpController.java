@@ -0,0 +1,61 @@
+package org.auth.multifactor.controller;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import lombok.RequiredArgsConstructor;
+import org.auth.multifactor.service.TotpEnrollmentResult;
+import org.auth.multifactor.service.TotpService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.auth.multifactor.service.enumeration.OtpValidationStatus.VALID;
+
+/**
+ * Authenticator app mode. Enrollment and reset take an emailed code from {@code /otp/create} as proof that
+ * the caller owns the email. Validation answers with the same statuses and bodies as emailed codes.
+ */
+@Validated
+@RestController
+@RequestMapping("/otp/totp")
+@RequiredArgsConstructor
+@Profile("!reactive")
+@ConditionalOnProperty(prefix = "application.totp", name = "enabled", havingValue = "true")
+public class TotpController {
+
+    private final TotpService totpServiceImpl;
+
+    @PostMapping(path = "/enroll", consumes = {MediaType.APPLICATION_FORM_URLENCODED_VALUE})
+    public ResponseEntity<?> enroll(@Valid @RequestParam @NotBlank @Email String email,
+                                    @Valid @RequestParam @NotBlank String otp) {
+        TotpEnrollmentResult result = totpServiceImpl.enroll(email, otp);
+        if (result.proof() != VALID) {
+            return OtpResponses.ownershipNotProven(result.proof());
+        }
+        return result.enrolled() ? OtpResponses.enrolled(result.otpauthUri()) : OtpResponses.alreadyEnrolled();
+    }
+
+    @PostMapping(path = "/reset", consumes = {MediaType.APPLICATION_FORM_URLENCODED_VALUE})
+    public ResponseEntity<?> reset(@Valid @RequestParam @NotBlank @Email String email,
+                                   @Valid @RequestParam @NotBlank String otp) {
+        TotpEnrollmentResult result = totpServiceImpl.reset(email, otp);
+        if (result.proof() != VALID) {
+            return OtpResponses.ownershipNotProven(result.proof());
+        }
+        return OtpResponses.enrolled(result.otpauthUri());
+    }
+
+    @PostMapping(path = "/validate", consumes = {MediaType.APPLICATION_FORM_URLENCODED_VALUE})
+    public ResponseEntity<String> validate(@Valid @RequestParam @NotBlank @Email String email,
+                                           @Valid @RequestParam @NotBlank String otp) {
+        return OtpResponses.validated(totpServiceImpl.validate(email, otp));
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,24 @@
+package org.auth.multifactor.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoId;
+
+import java.time.LocalDateTime;
+
+@Document(collection = "otp_audit")
+@Getter
+@Setter
+@NoArgsConstructor
+public class AuditEvent {
+
+    @MongoId
+    private String id;
+    private String operation;
+    private String email;
+    private String outcome;
+    private LocalDateTime occurredDateTime;
+
+}
\ No newline at end of file
@@ -0,0 +1,69 @@
+package org.auth.multifactor.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The active code of an email, stored under the email itself and replaced in place on every create.
+ * Field names are kept short since they are repeated in every document and history entry.
+ */
+@Document(collection = "otp_by_email")
+@Getter
+@Setter
+@NoArgsConstructor
+public class EmailOtp {
+
+    public static final String HASH = "h";
+    public static final String SALT = "s";
+    public static final String HASH_ALGORITHM = "a";
+    public static final String HASH_PARAMETERS = "p";
+    public static final String EXPIRATION = "x";
+    public static final String USED = "u";
+    public static final String CREATED = "c";
+    public static final String HISTORY = "hist";
+
+    @Id
+    private String email;
+    @Field(HASH)
+    private byte[] hash;
+    @Field(SALT)
+    private byte[] salt;
+    @Field(HASH_ALGORITHM)
+    private String hashAlgorithm;
+    @Field(HASH_PARAMETERS)
+    private Map<String, String> hashParameters;
+    @Field(EXPIRATION)
+    private LocalDateTime expirationDateTime;
+    @Field(USED)
+    private boolean used;
+    @Field(CREATED)
+    private LocalDateTime createdDateTime;
+    @Field(HISTORY)
+    private List<HistoryEntry> history;
+
+    /**
+     * A replaced code, without its hash. Deleted together with the document when the active code expires.
+     */
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    public static class HistoryEntry {
+
+        @Field(CREATED)
+        private LocalDateTime createdDateTime;
+        @Field(EXPIRATION)
+        private LocalDateTime expirationDateTime;
+        @Field(USED)
+        private boolean used;
+
+    }
+
+}
\ No newline at end of file
@@ -7,6 +7,7 @@ import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.MongoId;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 
 @Document(collection = "one_time_password")
 @Getter
@@ -19,6 +20,8 @@ public class Otp {
     private String email;
     private byte[] otp;
     private byte[] salt;
+    private String hashAlgorithm;
+    private Map<String, String> hashParameters;
     private LocalDateTime expirationDateTime;
     private boolean isUsed;
 
@@ -0,0 +1,37 @@
+package org.auth.multifactor.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.auth.multifactor.model.enumeration.OutgoingMessageStatus;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoId;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outbox record for a message that still has to be handed to the mail relay.
+ * The text is cleared once the message is sent, so delivered codes do not linger in the database.
+ */
+@Document(collection = "outgoing_message")
+@Getter
+@Setter
+@NoArgsConstructor
+public class OutgoingMessage {
+
+    @MongoId
+    private String id;
+    private String to;
+    private String subject;
+    private String text;
+    private OutgoingMessageStatus status;
+    private int attempts;
+    private String claimId;
+    private String lastError;
+    private LocalDateTime createdDateTime;
+    private LocalDateTime nextAttemptDateTime;
+    private LocalDateTime sentDateTime;
+    // set once the message is SENT or FAILED, purged by a TTL index
+    private LocalDateTime finishedDateTime;
+
+}
@@ -0,0 +1,25 @@
+package org.auth.multifactor.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Document(collection = "totp_secret")
+@Getter
+@Setter
+@NoArgsConstructor
+public class TotpSecret {
+
+    @Id
+    private String email;
+    private byte[] secret;
+    private String algorithm;
+    private int digits;
+    private int periodSeconds;
+    private LocalDateTime enrolledDateTime;
+
+}
\ No newline at end of file
@@ -0,0 +1,7 @@
+package org.auth.multifactor.model.enumeration;
+
+public enum OutgoingMessageStatus {
+
+    PENDING, SENT, FAILED;
+
+}
@@ -7,7 +7,7 @@ import org.springframework.stereotype.Repository;
 import java.util.Optional;
 
 @Repository
-public interface OtpRepository extends MongoRepository<Otp, Long> {
+public interface OtpRepository extends MongoRepository<Otp, Long>, OtpRepositoryCustom {
 
     Optional<Otp> findTopByEmailOrderByExpirationDateTimeDesc(String email);
 
@@ -0,0 +1,14 @@
+package org.auth.multifactor.repository;
+
+import java.time.LocalDateTime;
+
+public interface OtpRepositoryCustom {
+
+    /**
+     * Atomically flips isUsed on the given code if it is still unused and not expired at {@code now}.
+     *
+     * @return whether this call consumed the code
+     */
+    boolean markUsed(String id, LocalDateTime now);
+
+}
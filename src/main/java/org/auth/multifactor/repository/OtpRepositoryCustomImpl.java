@@ -0,0 +1,26 @@
+package org.auth.multifactor.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.auth.multifactor.model.Otp;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+@RequiredArgsConstructor
+public class OtpRepositoryCustomImpl implements OtpRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public boolean markUsed(String id, LocalDateTime now) {
+        return mongoTemplate.updateFirst(
+                query(where("id").is(id).and("isUsed").is(false).and("expirationDateTime").gte(now)),
+                new Update().set("isUsed", true),
+                Otp.class).getModifiedCount() == 1;
+    }
+
+}
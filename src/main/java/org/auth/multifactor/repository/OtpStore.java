@@ -0,0 +1,25 @@
+package org.auth.multifactor.repository;
+
+import org.auth.multifactor.model.Otp;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Storage of issued codes, selected by application.otp-store.layout.
+ */
+public interface OtpStore {
+
+    Optional<Otp> findLatest(String email);
+
+    void save(Otp otp);
+
+    void saveAll(List<Otp> otps);
+
+    /**
+     * Atomically marks the code as used if it is still unused and not expired at now.
+     */
+    boolean markUsed(Otp otp, LocalDateTime now);
+
+}
\ No newline at end of file
@@ -0,0 +1,10 @@
+package org.auth.multifactor.repository;
+
+import org.auth.multifactor.model.OutgoingMessage;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OutgoingMessageRepository extends MongoRepository<OutgoingMessage, String> {
+
+}
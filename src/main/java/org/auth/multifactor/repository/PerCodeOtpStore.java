@@ -0,0 +1,42 @@
+package org.auth.multifactor.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.auth.multifactor.model.Otp;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * One document per issued code in one_time_password, the latest one found through the (email, expirationDateTime) index.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "application.otp-store", name = "layout", havingValue = "per-code", matchIfMissing = true)
+public class PerCodeOtpStore implements OtpStore {
+
+    private final OtpRepository otpRepository;
+
+    @Override
+    public Optional<Otp> findLatest(String email) {
+        return otpRepository.findTopByEmailOrderByExpirationDateTimeDesc(email);
+    }
+
+    @Override
+    public void save(Otp otp) {
+        otpRepository.save(otp);
+    }
+
+    @Override
+    public void saveAll(List<Otp> otps) {
+        otpRepository.insert(otps);
+    }
+
+    @Override
+    public boolean markUsed(Otp otp, LocalDateTime now) {
+        return otpRepository.markUsed(otp.getId(), now);
+    }
+
+}
\ No newline at end of file
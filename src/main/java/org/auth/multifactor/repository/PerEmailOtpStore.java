@@ -0,0 +1,128 @@
+package org.auth.multifactor.repository;
+
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import org.auth.multifactor.model.EmailOtp;
+import org.auth.multifactor.model.Otp;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static com.mongodb.client.model.Filters.eq;
+import static java.time.ZoneOffset.UTC;
+import static org.auth.multifactor.model.EmailOtp.*;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * One document per email in otp_by_email. Create is a single pipeline upsert that replaces the active code in place
+ * and appends the replaced one, without its hash, to a history capped at application.otp-store.history-depth.
+ * The history is purged with the document by the TTL index once the active code expires, so it only covers
+ * reissues while a code is live; durable records are kept by the audit trail.
+ */
+@Component
+@ConditionalOnProperty(prefix = "application.otp-store", name = "layout", havingValue = "per-email")
+public class PerEmailOtpStore implements OtpStore {
+
+    private static final UpdateOptions UPSERT = new UpdateOptions().upsert(true);
+
+    private final MongoTemplate mongoTemplate;
+    private final int historyDepth;
+
+    public PerEmailOtpStore(MongoTemplate mongoTemplate,
+                            @Value("${application.otp-store.history-depth}") int historyDepth) {
+        this.mongoTemplate = mongoTemplate;
+        this.historyDepth = historyDepth;
+    }
+
+    @Override
+    public Optional<Otp> findLatest(String email) {
+        Query query = query(where("email").is(email));
+        query.fields().exclude("history");
+        return Optional.ofNullable(mongoTemplate.findOne(query, EmailOtp.class)).map(PerEmailOtpStore::toOtp);
+    }
+
+    @Override
+    public void save(Otp otp) {
+        List<Document> pipeline = upsertPipeline(otp, LocalDateTime.now(UTC));
+        mongoTemplate.execute(EmailOtp.class, collection -> collection.updateOne(eq("_id", otp.getEmail()), pipeline, UPSERT));
+    }
+
+    @Override
+    public void saveAll(List<Otp> otps) {
+        LocalDateTime now = LocalDateTime.now(UTC);
+        List<UpdateOneModel<Document>> upserts = otps.stream()
+                .map(otp -> new UpdateOneModel<Document>(eq("_id", otp.getEmail()), upsertPipeline(otp, now), UPSERT))
+                .toList();
+        mongoTemplate.execute(EmailOtp.class, collection -> collection.bulkWrite(upserts, new BulkWriteOptions().ordered(false)));
+    }
+
+    @Override
+    public boolean markUsed(Otp otp, LocalDateTime now) {
+        // the salt identifies the code, so a code replaced since it was read is never consumed
+        return mongoTemplate.updateFirst(
+                query(where("email").is(otp.getEmail()).and("salt").is(otp.getSalt())
+                        .and("used").is(false).and("expirationDateTime").gte(now)),
+                new Update().set("used", true),
+                EmailOtp.class).getModifiedCount() == 1;
+    }
+
+    List<Document> upsertPipeline(Otp otp, LocalDateTime now) {
+        Document set = new Document();
+        if (historyDepth > 0) {
+            // expressions in one $set stage read the document as it was before the update
+            Document replaced = new Document(CREATED, "$" + CREATED).append(EXPIRATION, "$" + EXPIRATION).append(USED, "$" + USED);
+            Document appended = new Document("$cond", List.of(
+                    new Document("$eq", List.of(new Document("$type", "$" + EXPIRATION), "missing")),
+                    List.of(),
+                    List.of(replaced)));
+            Document history = new Document("$concatArrays", List.of(new Document("$ifNull", List.of("$" + HISTORY, List.of())), appended));
+            set.append(HISTORY, new Document("$slice", List.of(history, -historyDepth)));
+        }
+        Document hashParameters = null;
+        if (otp.getHashParameters() != null) {
+            hashParameters = new Document();
+            hashParameters.putAll(otp.getHashParameters());
+        }
+        set.append(HASH, literal(otp.getOtp()))
+                .append(SALT, literal(otp.getSalt()))
+                .append(HASH_ALGORITHM, literal(otp.getHashAlgorithm()))
+                .append(HASH_PARAMETERS, literal(hashParameters))
+                .append(EXPIRATION, literal(toMongoType(otp.getExpirationDateTime())))
+                .append(USED, false)
+                .append(CREATED, literal(toMongoType(now)));
+        return List.of(new Document("$set", set));
+    }
+
+    private Object toMongoType(LocalDateTime dateTime) {
+        // same conversion as mapped reads and queries
+        return mongoTemplate.getConverter().convertToMongoType(dateTime);
+    }
+
+    private static Document literal(Object value) {
+        return new Document("$literal", value);
+    }
+
+    private static Otp toOtp(EmailOtp emailOtp) {
+        Otp otp = new Otp();
+        otp.setId(emailOtp.getEmail());
+        otp.setEmail(emailOtp.getEmail());
+        otp.setOtp(emailOtp.getHash());
+        otp.setSalt(emailOtp.getSalt());
+        otp.setHashAlgorithm(emailOtp.getHashAlgorithm());
+        otp.setHashParameters(emailOtp.getHashParameters());
+        otp.setExpirationDateTime(emailOtp.getExpirationDateTime());
+        otp.setUsed(emailOtp.isUsed());
+        return otp;
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,10 @@
+package org.auth.multifactor.repository;
+
+import org.auth.multifactor.model.TotpSecret;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TotpSecretRepository extends MongoRepository<TotpSecret, String> {
+
+}
\ No newline at end of file
@@ -0,0 +1,16 @@
+package org.auth.multifactor.service;
+
+import org.auth.multifactor.service.enumeration.OtpValidationStatus;
+
+public interface ChallengeOtpService {
+
+    /**
+     * Sends a code to the email without storing it.
+     *
+     * @return the signed challenge the caller presents together with the code
+     */
+    String create(String email);
+
+    OtpValidationStatus validate(String email, String otp, String challenge);
+
+}
\ No newline at end of file
@@ -0,0 +1,196 @@
+package org.auth.multifactor.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.auth.multifactor.service.audit.OtpAuditLog;
+import org.auth.multifactor.service.enumeration.OtpCreationStatus;
+import org.auth.multifactor.service.enumeration.OtpValidationStatus;
+import org.auth.multifactor.service.hashing.HmacHashingProperties;
+import org.auth.multifactor.service.hashing.HmacOtpHashingStrategy;
+import org.auth.multifactor.util.PasswordUtil;
+import org.auth.multifactor.util.RotatingBloomFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.auth.multifactor.service.enumeration.OtpValidationStatus.*;
+
+/**
+ * Stateless codes: create mails a code and hands the caller a challenge instead of inserting a record, and
+ * validate checks both with CPU only, so neither touches Mongo.
+ * <p>
+ * The challenge carries the expiry, a salt and the keyed HMAC of the code ({@link HmacOtpHashingStrategy}, so the
+ * code cannot be brute-forced from it), signed together with the email under a key derived from the same secret.
+ * Consumed challenges go into a {@link RotatingBloomFilter} that drops them once they have expired. The filter is
+ * local to the instance: single use holds across instances only if validations for an email reach the same one.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "application.challenge", name = "enabled", havingValue = "true")
+public class ChallengeOtpServiceImpl implements ChallengeOtpService {
+
+    private static final byte VERSION = 1;
+    private static final int MAX_CHALLENGE_LENGTH = 512;
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final byte[] SIGNING_KEY_LABEL = "otp-challenge-signing".getBytes(StandardCharsets.US_ASCII);
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final long otpTtlSeconds;
+    private final PasswordUtil passwordUtil;
+    private final HmacOtpHashingStrategy hmacOtpHashingStrategy;
+    private final HmacHashingProperties hmacHashingProperties;
+    private final OutgoingMessageService outgoingEmailMessageService;
+    private final OtpMetrics otpMetrics;
+    private final OtpAuditLog otpAuditLog;
+    private final Clock clock;
+    private final RotatingBloomFilter usedChallenges;
+    private final Map<String, SecretKeySpec> signingKeys = new ConcurrentHashMap<>();
+
+    public ChallengeOtpServiceImpl(@Value("${application.otp-ttl-minutes}") long otpTtlMinutes,
+                                   @Value("${application.challenge.used-filter.bucket-seconds}") long bucketSeconds,
+                                   @Value("${application.challenge.used-filter.expected-per-bucket}") long expectedPerBucket,
+                                   @Value("${application.challenge.used-filter.false-positive-probability}") double falsePositiveProbability,
+                                   PasswordUtil passwordUtil,
+                                   HmacOtpHashingStrategy hmacOtpHashingStrategy,
+                                   HmacHashingProperties hmacHashingProperties,
+                                   OutgoingMessageService outgoingEmailMessageService,
+                                   OtpMetrics otpMetrics,
+                                   OtpAuditLog otpAuditLog,
+                                   Clock clock) {
+        this.otpTtlSeconds = otpTtlMinutes * 60;
+        this.passwordUtil = passwordUtil;
+        this.hmacOtpHashingStrategy = hmacOtpHashingStrategy;
+        this.hmacHashingProperties = hmacHashingProperties;
+        this.outgoingEmailMessageService = outgoingEmailMessageService;
+        this.otpMetrics = otpMetrics;
+        this.otpAuditLog = otpAuditLog;
+        this.clock = clock;
+        this.usedChallenges = new RotatingBloomFilter(bucketSeconds, expectedPerBucket, falsePositiveProbability);
+    }
+
+    @Override
+    public String create(String email) {
+        String password = passwordUtil.generateOneTimePassword();
+        byte[] salt = passwordUtil.generateSalt();
+        Map<String, String> parameters = hmacOtpHashingStrategy.getParameters();
+        String keyId = hmacHashingProperties.getActiveKeyId();
+        byte[] keyIdBytes = keyId.getBytes(StandardCharsets.UTF_8);
+        byte[] codeHash = hmacOtpHashingStrategy.generateHash(password, salt, parameters);
+
+        byte[] payload = ByteBuffer.allocate(1 + 1 + keyIdBytes.length + Long.BYTES + 1 + salt.length + codeHash.length)
+                .put(VERSION)
+                .put((byte) keyIdBytes.length).put(keyIdBytes)
+                .putLong(clock.instant().getEpochSecond() + otpTtlSeconds)
+                .put((byte) salt.length).put(salt)
+                .put(codeHash)
+                .array();
+        String challenge = ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(sign(keyId, payload, email));
+
+        outgoingEmailMessageService.sendMessage(email, "Auth Code", password);
+        otpAuditLog.record(OtpAuditLog.CREATE, email, OtpCreationStatus.CREATED);
+        log.info("Sent OTP password with challenge for email: {}", email);
+
+        return challenge;
+    }
+
+    @Override
+    public OtpValidationStatus validate(String email, String otp, String challenge) {
+        OtpValidationStatus status = otpMetrics.recordValidation(doValidate(email, otp, challenge));
+        otpAuditLog.record(OtpAuditLog.VALIDATE, email, status);
+        return status;
+    }
+
+    private OtpValidationStatus doValidate(String email, String otp, String challenge) {
+        int separator = challenge.indexOf('.');
+        if (challenge.length() > MAX_CHALLENGE_LENGTH || separator < 0) {
+            log.info("Malformed challenge for email: {}", email);
+            return INVALID;
+        }
+
+        byte[] payload;
+        byte[] signature;
+        String keyId;
+        long expiresAt;
+        byte[] salt;
+        byte[] codeHash;
+        try {
+            payload = DECODER.decode(challenge.substring(0, separator));
+            signature = DECODER.decode(challenge.substring(separator + 1));
+            ByteBuffer buffer = ByteBuffer.wrap(payload);
+            if (buffer.get() != VERSION) {
+                throw new IllegalArgumentException("Unsupported challenge version");
+            }
+            byte[] keyIdBytes = new byte[buffer.get()];
+            buffer.get(keyIdBytes);
+            keyId = new String(keyIdBytes, StandardCharsets.UTF_8);
+            expiresAt = buffer.getLong();
+            salt = new byte[buffer.get()];
+            buffer.get(salt);
+            codeHash = new byte[buffer.remaining()];
+            buffer.get(codeHash);
+        } catch (IllegalArgumentException | BufferUnderflowException | NegativeArraySizeException e) {
+            log.info("Malformed challenge for email: {}", email);
+            return INVALID;
+        }
+
+        if (!hmacHashingProperties.getKeys().containsKey(keyId) || !MessageDigest.isEqual(sign(keyId, payload, email), signature)) {
+            log.info("Challenge signature mismatch for email: {}", email);
+            return INVALID;
+        }
+        long now = clock.instant().getEpochSecond();
+        if (expiresAt < now) {
+            log.info("Expired OTP password for email: {}", email);
+            return EXPIRED;
+        }
+        byte[] presentedHash = hmacOtpHashingStrategy.generateHash(otp, salt, Map.of("keyId", keyId));
+        if (!MessageDigest.isEqual(presentedHash, codeHash)) {
+            log.info("Invalid OTP password for email: {}", email);
+            return INVALID;
+        }
+        // the signature is unique per challenge, and only verified challenges reach the filter
+        if (!usedChallenges.add(signature, expiresAt, now)) {
+            log.info("Used OTP password for email: {}", email);
+            return USED;
+        }
+        log.info("Validated OTP password for email: {}", email);
+
+        return VALID;
+    }
+
+    private byte[] sign(String keyId, byte[] payload, String email) {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(signingKeys.computeIfAbsent(keyId, this::deriveSigningKey));
+            mac.update(payload);
+            return mac.doFinal(email.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Separates the signing key from the key that hashes codes, so one never doubles as the other.
+     */
+    private SecretKeySpec deriveSigningKey(String keyId) {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(new SecretKeySpec(Base64.getDecoder().decode(hmacHashingProperties.getKeys().get(keyId)), MAC_ALGORITHM));
+            return new SecretKeySpec(mac.doFinal(SIGNING_KEY_LABEL), MAC_ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,105 @@
+package org.auth.multifactor.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.auth.multifactor.model.Otp;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static java.time.ZoneOffset.UTC;
+
+/**
+ * In-process cache of the latest code per email, filled write-through by create and by database reads,
+ * plus short-lived entries for emails without a code. An entry lives until its code expires (plus a retention
+ * period so EXPIRED can still be answered from memory), capped by a maximum age and evicted by size.
+ * <p>
+ * The cache is local to the instance: a code created or consumed on another instance is only seen here once
+ * the entry ages out, so enable it only when requests for an email reach the same instance.
+ */
+@Component
+public class OtpCache {
+
+    /**
+     * A cached lookup result; {@code otp} is null when the email is known to have no code.
+     */
+    public record Entry(Otp otp, boolean used) {
+    }
+
+    private static final Entry MISSING = new Entry(null, false);
+
+    private final boolean enabled;
+    private final Cache<String, Entry> cache;
+
+    public OtpCache(@Value("${application.cache.otp.enabled}") boolean enabled,
+                    @Value("${application.cache.otp.maximum-size}") long maximumSize,
+                    @Value("${application.cache.otp.maximum-age-seconds}") long maximumAgeSeconds,
+                    @Value("${application.cache.otp.expired-retention-seconds}") long expiredRetentionSeconds,
+                    @Value("${application.cache.otp.not-found-ttl-seconds}") long notFoundTtlSeconds,
+                    MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new EntryExpiry(Duration.ofSeconds(maximumAgeSeconds), Duration.ofSeconds(expiredRetentionSeconds),
+                        Duration.ofSeconds(notFoundTtlSeconds)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "otp");
+    }
+
+    /**
+     * @return the cached entry, or null on a cache miss
+     */
+    public Entry get(String email) {
+        return enabled ? cache.getIfPresent(email) : null;
+    }
+
+    public void put(Otp otp) {
+        if (enabled) {
+            cache.put(otp.getEmail(), new Entry(otp, otp.isUsed()));
+        }
+    }
+
+    public void putMissing(String email) {
+        if (enabled) {
+            cache.put(email, MISSING);
+        }
+    }
+
+    public void markUsed(Otp otp) {
+        if (enabled) {
+            // compared by identity, ids are shared by successive codes in the per-email layout
+            cache.asMap().computeIfPresent(otp.getEmail(),
+                    (email, entry) -> entry.otp() == otp ? new Entry(entry.otp(), true) : entry);
+        }
+    }
+
+    private record EntryExpiry(Duration maximumAge, Duration expiredRetention, Duration notFoundTtl) implements Expiry<String, Entry> {
+
+        @Override
+        public long expireAfterCreate(String email, Entry entry, long currentTime) {
+            if (entry.otp() == null) {
+                return notFoundTtl.toNanos();
+            }
+            Duration untilExpired = Duration.between(LocalDateTime.now(UTC), entry.otp().getExpirationDateTime()).plus(expiredRetention);
+            return Math.max(0, Math.min(untilExpired.toNanos(), maximumAge.toNanos()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String email, Entry entry, long currentTime, long currentDuration) {
+            return expireAfterCreate(email, entry, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String email, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+    }
+
+}
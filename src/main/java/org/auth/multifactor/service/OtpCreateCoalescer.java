@@ -0,0 +1,113 @@
+package org.auth.multifactor.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Collapses create requests for the same email. Concurrent requests wait for the one already in flight and share
+ * its outcome, and requests within the cooldown after a successful create reuse the code that was just sent.
+ * Emails are compared trimmed and lower-cased, as the rate limiter compares them. In-flight entries are removed when
+ * the create completes and cooldown entries expire, so idle emails hold no memory.
+ * <p>
+ * Both are local to the instance; requests for an email spread across instances are still bounded by the rate limiter.
+ */
+@Component
+public class OtpCreateCoalescer {
+
+    private final ConcurrentMap<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+    private final Cache<String, Boolean> coolingDown;
+    private final Counter inFlightReused;
+    private final Counter cooldownReused;
+
+    public OtpCreateCoalescer(@Value("${application.otp-create.cooldown-seconds}") long cooldownSeconds,
+                              @Value("${application.otp-create.maximum-cooldown-keys}") long maximumCooldownKeys,
+                              MeterRegistry meterRegistry) {
+        this.coolingDown = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(cooldownSeconds))
+                .maximumSize(cooldownSeconds > 0 ? maximumCooldownKeys : 0)
+                .build();
+        this.inFlightReused = Counter.builder("otp.create.coalesced").tag("reason", "in-flight").register(meterRegistry);
+        this.cooldownReused = Counter.builder("otp.create.coalesced").tag("reason", "cooldown").register(meterRegistry);
+    }
+
+    /**
+     * Runs create for the email unless a create for it is in flight, then waiting for that one instead,
+     * or completed within the cooldown.
+     *
+     * @return true if this call created a new code
+     */
+    public boolean run(String email, Runnable create) {
+        String key = key(email);
+        if (coolingDown.getIfPresent(key) != null) {
+            cooldownReused.increment();
+            return false;
+        }
+
+        CompletableFuture<Void> flight = new CompletableFuture<>();
+        CompletableFuture<Void> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            inFlightReused.increment();
+            await(existing);
+            return false;
+        }
+
+        try {
+            // a create may have completed between the cooldown check and taking the flight
+            if (coolingDown.getIfPresent(key) != null) {
+                cooldownReused.increment();
+                flight.complete(null);
+                return false;
+            }
+            create.run();
+            coolingDown.put(key, Boolean.TRUE);
+            flight.complete(null);
+            return true;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Starts the cooldown for a code created outside {@link #run}.
+     */
+    public void created(String email) {
+        coolingDown.put(key(email), Boolean.TRUE);
+    }
+
+    /**
+     * Ends the cooldown, so the next request creates a new code.
+     */
+    public void consumed(String email) {
+        coolingDown.invalidate(key(email));
+    }
+
+    private static String key(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static void await(CompletableFuture<Void> flight) {
+        try {
+            flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,9 @@
+package org.auth.multifactor.service;
+
+import org.auth.multifactor.service.enumeration.OtpCreationStatus;
+
+/**
+ * Outcome of issuing a code to one email of a batch.
+ */
+public record OtpCreationResult(String email, OtpCreationStatus status) {
+}
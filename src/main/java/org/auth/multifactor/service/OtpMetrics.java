@@ -0,0 +1,77 @@
+package org.auth.multifactor.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.auth.multifactor.service.enumeration.OtpValidationStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Stage timers for OTP operations ({@code otp.stage}) and validation outcome counters ({@code otp.validation}).
+ * Tags only take the fixed operation, stage and status names below, never request data such as emails.
+ */
+@Component
+public class OtpMetrics {
+
+    public static final String CREATE = "create";
+    public static final String CREATE_BATCH = "create_batch";
+    public static final String VALIDATE = "validate";
+
+    /** Loading or generating the hashed code. */
+    public static final String HASH = "hash";
+    /** Looking up the latest code in the repository. */
+    public static final String LOOKUP = "lookup";
+    /** Inserting new codes. */
+    public static final String SAVE = "save";
+    /** Atomically marking a code used. */
+    public static final String CONSUME = "consume";
+    /** Handing the code to the outgoing message service. */
+    public static final String MAIL = "mail";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<OtpValidationStatus, Counter> validations = new EnumMap<>(OtpValidationStatus.class);
+
+    public OtpMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (OtpValidationStatus status : OtpValidationStatus.values()) {
+            validations.put(status, Counter.builder("otp.validation")
+                    .description("OTP validations by outcome")
+                    .tag("status", status.name())
+                    .register(meterRegistry));
+        }
+    }
+
+    public <T> T time(String operation, String stage, Supplier<T> task) {
+        return timer(operation, stage).record(task);
+    }
+
+    public void time(String operation, String stage, Runnable task) {
+        timer(operation, stage).record(task);
+    }
+
+    public void recordSince(String operation, String stage, long startNanos) {
+        timer(operation, stage).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public OtpValidationStatus recordValidation(OtpValidationStatus status) {
+        validations.get(status).increment();
+        return status;
+    }
+
+    private Timer timer(String operation, String stage) {
+        return timers.computeIfAbsent(operation + "." + stage, key -> Timer.builder("otp.stage")
+                .description("Time spent in one stage of an OTP operation")
+                .tag("operation", operation)
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+}
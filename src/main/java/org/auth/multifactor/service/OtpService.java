@@ -2,10 +2,17 @@ package org.auth.multifactor.service;
 
 import org.auth.multifactor.service.enumeration.OtpValidationStatus;
 
+import java.util.List;
+
 public interface OtpService {
 
     void create(String email);
 
+    /**
+     * Issues a code to each distinct email; failures are reported per email instead of failing the batch.
+     */
+    List<OtpCreationResult> create(List<String> emails);
+
     OtpValidationStatus validate(String email, String otp);
 
 }
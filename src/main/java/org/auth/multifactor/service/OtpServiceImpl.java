@@ -3,17 +3,28 @@ package org.auth.multifactor.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.auth.multifactor.model.Otp;
-import org.auth.multifactor.repository.OtpRepository;
+import org.auth.multifactor.repository.OtpStore;
+import org.auth.multifactor.service.audit.OtpAuditLog;
+import org.auth.multifactor.service.PrecomputedOtpPool.PrecomputedOtp;
+import org.auth.multifactor.service.enumeration.OtpCreationStatus;
 import org.auth.multifactor.service.enumeration.OtpValidationStatus;
+import org.auth.multifactor.service.exception.ServiceUnavailableException;
+import org.auth.multifactor.service.hashing.OtpHash;
+import org.auth.multifactor.service.hashing.OtpHashingService;
 import org.auth.multifactor.util.PasswordUtil;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
-import java.util.Arrays;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.IntStream;
 
 import static java.time.ZoneOffset.UTC;
+import static org.auth.multifactor.service.OtpMetrics.*;
+import static org.auth.multifactor.service.enumeration.OtpCreationStatus.*;
 import static org.auth.multifactor.service.enumeration.OtpValidationStatus.*;
 
 @Slf4j
@@ -23,58 +34,205 @@ public class OtpServiceImpl implements OtpService {
 
     @Value("${application.otp-ttl-minutes}")
     private Long otpTtlMinutes;
+    @Value("${application.otp-batch.hash-chunk-size}")
+    private int hashChunkSize;
 
     private final PasswordUtil passwordUtil;
-    private final OtpRepository otpRepository;
+    private final OtpHashingService otpHashingService;
+    private final PrecomputedOtpPool precomputedOtpPool;
+    private final OtpCache otpCache;
+    private final OtpCreateCoalescer otpCreateCoalescer;
+    private final OtpStore otpStore;
     private final OutgoingMessageService outgoingEmailMessageService;
+    private final OtpMetrics otpMetrics;
+    private final OtpAuditLog otpAuditLog;
 
     @Override
     public void create(String email) {
-        byte[] salt = passwordUtil.generateSalt();
-        String password = passwordUtil.generateOneTimePassword();
+        boolean created;
+        try {
+            created = otpCreateCoalescer.run(email, () -> doCreate(email));
+        } catch (RuntimeException e) {
+            otpAuditLog.record(OtpAuditLog.CREATE, email, FAILED);
+            throw e;
+        }
+        if (created) {
+            otpAuditLog.record(OtpAuditLog.CREATE, email, CREATED);
+        } else {
+            otpAuditLog.record(OtpAuditLog.CREATE, email, REUSED);
+            log.info("Reused outstanding OTP password for email: {}", email);
+        }
+    }
 
-        Otp otp = new Otp();
-        otp.setEmail(email);
-        otp.setOtp(passwordUtil.generateHash(password, salt));
-        otp.setSalt(salt);
-        otp.setExpirationDateTime(LocalDateTime.now(UTC).plusMinutes(otpTtlMinutes));
+    private void doCreate(String email) {
+        PrecomputedOtp credentials = otpMetrics.time(CREATE, HASH,
+                () -> precomputedOtpPool.take().orElseGet(this::generateCredentials));
+        Otp otp = buildOtp(email, credentials, LocalDateTime.now(UTC).plusMinutes(otpTtlMinutes));
 
-        otpRepository.save(otp);
-        outgoingEmailMessageService.sendMessage(email, "Auth Code", password);
+        otpMetrics.time(CREATE, SAVE, () -> otpStore.save(otp));
+        otpCache.put(otp);
+        otpMetrics.time(CREATE, MAIL, () -> outgoingEmailMessageService.sendMessage(email, "Auth Code", credentials.password()));
         log.info("Saved & sent OTP password for email: {}", email);
+    }
 
+    @Override
+    public List<OtpCreationResult> create(List<String> emails) {
+        List<String> distinctEmails = emails.stream().distinct().toList();
+        Map<String, OtpCreationStatus> statuses = new HashMap<>();
+
+        // the precomputed pool is sized for interactive traffic, so batches always hash, in chunks spread over the cores
+        long hashStart = System.nanoTime();
+        List<List<String>> chunks = new ArrayList<>();
+        List<CompletableFuture<List<PrecomputedOtp>>> chunkCredentials = new ArrayList<>();
+        for (int from = 0; from < distinctEmails.size(); from += hashChunkSize) {
+            List<String> chunk = distinctEmails.subList(from, Math.min(from + hashChunkSize, distinctEmails.size()));
+            try {
+                chunkCredentials.add(generateCredentialsAsync(chunk.size()));
+                chunks.add(chunk);
+            } catch (ServiceUnavailableException e) {
+                chunk.forEach(email -> statuses.put(email, HASHING_FAILED));
+            }
+        }
+
+        LocalDateTime expirationDateTime = LocalDateTime.now(UTC).plusMinutes(otpTtlMinutes);
+        List<Otp> otps = new ArrayList<>(distinctEmails.size());
+        Map<String, String> passwords = new LinkedHashMap<>();
+        for (int i = 0; i < chunks.size(); i++) {
+            List<String> chunk = chunks.get(i);
+            try {
+                List<PrecomputedOtp> credentials = chunkCredentials.get(i).join();
+                for (int j = 0; j < chunk.size(); j++) {
+                    otps.add(buildOtp(chunk.get(j), credentials.get(j), expirationDateTime));
+                    passwords.put(chunk.get(j), credentials.get(j).password());
+                }
+            } catch (CompletionException e) {
+                log.warn("Failed to hash OTP passwords for {} emails", chunk.size(), e.getCause());
+                chunk.forEach(email -> statuses.put(email, HASHING_FAILED));
+            }
+        }
+        otpMetrics.recordSince(CREATE_BATCH, HASH, hashStart);
+
+        if (!otps.isEmpty()) {
+            try {
+                otpMetrics.time(CREATE_BATCH, SAVE, () -> otpStore.saveAll(otps));
+                otps.forEach(otpCache::put);
+                otpMetrics.time(CREATE_BATCH, MAIL, () -> outgoingEmailMessageService.sendMessages("Auth Code", passwords))
+                        .forEach((email, e) -> statuses.put(email, DELIVERY_FAILED));
+            } catch (DataAccessException e) {
+                log.error("Failed to save {} OTP passwords", otps.size(), e);
+                passwords.keySet().forEach(email -> statuses.put(email, STORAGE_FAILED));
+            }
+        }
+        log.info("Saved & sent OTP passwords for {} of {} emails", distinctEmails.size() - statuses.size(), distinctEmails.size());
+
+        List<OtpCreationResult> results = distinctEmails.stream()
+                .map(email -> new OtpCreationResult(email, statuses.getOrDefault(email, CREATED)))
+                .toList();
+        results.stream()
+                .filter(result -> result.status() == CREATED)
+                .forEach(result -> otpCreateCoalescer.created(result.email()));
+        results.forEach(result -> otpAuditLog.record(OtpAuditLog.CREATE, result.email(), result.status()));
+        return results;
     }
 
     @Override
     public OtpValidationStatus validate(String email, String otp) {
-        Optional<Otp> dbResult = otpRepository.findTopByEmailOrderByExpirationDateTimeDesc(email);
+        OtpValidationStatus status = otpMetrics.recordValidation(doValidate(email, otp));
+        otpAuditLog.record(OtpAuditLog.VALIDATE, email, status);
+        return status;
+    }
+
+    private OtpValidationStatus doValidate(String email, String otp) {
+        OtpCache.Entry cached = otpCache.get(email);
+        Otp result;
 
-        if (dbResult.isEmpty()) {
+        if (cached == null) {
+            Optional<Otp> dbResult = otpMetrics.time(VALIDATE, LOOKUP, () -> otpStore.findLatest(email));
+
+            if (dbResult.isEmpty()) {
+                otpCache.putMissing(email);
+                log.info("Not Found OTP password for email: {}", email);
+                return NOT_FOUND;
+            }
+
+            result = dbResult.get();
+            otpCache.put(result);
+        } else if (cached.otp() == null) {
             log.info("Not Found OTP password for email: {}", email);
             return NOT_FOUND;
+        } else {
+            result = cached.otp();
+
+            // the cached state already decides the outcome, no need to hash
+            if (cached.used()) {
+                log.info("Used OTP password for email: {}", email);
+                return USED;
+            } else if (result.getExpirationDateTime().isBefore(LocalDateTime.now(UTC))) {
+                log.info("Expired OTP password for email: {}", email);
+                return EXPIRED;
+            }
         }
 
-        Otp result = dbResult.get();
-        byte[] otpAsHash = passwordUtil.generateHash(otp, result.getSalt());
-
-        if (!Arrays.equals(result.getOtp(), otpAsHash)) {
+        Otp candidate = result;
+        if (!otpMetrics.time(VALIDATE, HASH, () -> otpHashingService.matches(otp, candidate))) {
             log.info("Invalid OTP password for email: {}", email);
             return INVALID;
         }
 
+        LocalDateTime now = LocalDateTime.now(UTC);
         if (result.isUsed()) {
             log.info("Used OTP password for email: {}", email);
             return USED;
-        } else if (result.getExpirationDateTime().isBefore(LocalDateTime.now(UTC))) {
+        } else if (result.getExpirationDateTime().isBefore(now)) {
             log.info("Expired OTP password for email: {}", email);
             return EXPIRED;
         }
 
-        result.setUsed(true);
-        otpRepository.save(result);
+        if (!otpMetrics.time(VALIDATE, CONSUME, () -> otpStore.markUsed(candidate, now))) {
+            // a concurrent validation consumed the code first, or it expired in between
+            OtpValidationStatus status = result.getExpirationDateTime().isBefore(LocalDateTime.now(UTC)) ? EXPIRED : USED;
+            if (status == USED) {
+                otpCache.markUsed(result);
+            }
+            log.info("Lost race to consume OTP password for email: {}, status: {}", email, status);
+            return status;
+        }
+        otpCache.markUsed(result);
+        otpCreateCoalescer.consumed(email);
         log.info("Validated OTP password for email: {}", email);
 
         return VALID;
     }
 
+    private Otp buildOtp(String email, PrecomputedOtp credentials, LocalDateTime expirationDateTime) {
+        Otp otp = new Otp();
+        otp.setEmail(email);
+        otp.setOtp(credentials.hash().value());
+        otp.setSalt(credentials.salt());
+        otp.setHashAlgorithm(credentials.hash().algorithm());
+        otp.setHashParameters(credentials.hash().parameters());
+        otp.setExpirationDateTime(expirationDateTime);
+        return otp;
+    }
+
+    private CompletableFuture<List<PrecomputedOtp>> generateCredentialsAsync(int count) {
+        List<String> passwords = new ArrayList<>(count);
+        List<byte[]> salts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            passwords.add(passwordUtil.generateOneTimePassword());
+            salts.add(passwordUtil.generateSalt());
+        }
+        return otpHashingService.hashAllAsync(passwords, salts)
+                .thenApply(hashes -> IntStream.range(0, count)
+                        .mapToObj(i -> new PrecomputedOtp(passwords.get(i), salts.get(i), hashes.get(i)))
+                        .toList());
+    }
+
+    private PrecomputedOtp generateCredentials() {
+        byte[] salt = passwordUtil.generateSalt();
+        String password = passwordUtil.generateOneTimePassword();
+        OtpHash hash = otpHashingService.hash(password, salt);
+        return new PrecomputedOtp(password, salt, hash);
+    }
+
 }
@@ -0,0 +1,150 @@
+package org.auth.multifactor.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.auth.multifactor.model.OutgoingMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static java.time.ZoneOffset.UTC;
+import static org.auth.multifactor.model.enumeration.OutgoingMessageStatus.*;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Drains the outbox in batches. A batch is claimed by pushing its next attempt time out by the lease,
+ * so a crashed instance only delays its messages until the lease runs out and several instances can poll safely.
+ * Each result is written as soon as its message is sent, and a batch stops and releases what is left once half
+ * the lease has passed, so a claim never runs out while its messages are still being sent.
+ * Delivery is at-least-once: a message sent right before a crash is sent again after the lease.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "application.outbox", name = "enabled", havingValue = "true")
+public class OutboxDispatcher {
+
+    @Value("${application.outbox.batch-size}")
+    private Integer batchSize;
+    @Value("${application.outbox.lease-seconds}")
+    private Long leaseSeconds;
+    @Value("${application.outbox.max-attempts}")
+    private Integer maxAttempts;
+    @Value("${application.outbox.initial-backoff-seconds}")
+    private Long initialBackoffSeconds;
+    @Value("${application.outbox.max-backoff-seconds}")
+    private Long maxBackoffSeconds;
+
+    private final MongoTemplate mongoTemplate;
+    private final OutgoingEmailMessageService outgoingEmailMessageService;
+
+    @Scheduled(fixedDelayString = "${application.outbox.poll-interval-ms}")
+    public void dispatch() {
+        List<OutgoingMessage> batch;
+        do {
+            batch = claimBatch();
+            if (!batch.isEmpty()) {
+                deliver(batch);
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    private List<OutgoingMessage> claimBatch() {
+        LocalDateTime now = LocalDateTime.now(UTC);
+        Query due = query(where("status").is(PENDING).and("nextAttemptDateTime").lte(now))
+                .with(Sort.by("nextAttemptDateTime"))
+                .limit(batchSize);
+        due.fields().include("id");
+
+        List<String> ids = mongoTemplate.find(due, OutgoingMessage.class).stream()
+                .map(OutgoingMessage::getId)
+                .toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        String claimId = UUID.randomUUID().toString();
+        mongoTemplate.updateMulti(
+                query(where("id").in(ids).and("status").is(PENDING).and("nextAttemptDateTime").lte(now)),
+                new Update().set("claimId", claimId).set("nextAttemptDateTime", now.plusSeconds(leaseSeconds)),
+                OutgoingMessage.class);
+
+        return mongoTemplate.find(query(where("claimId").is(claimId)), OutgoingMessage.class);
+    }
+
+    private void deliver(List<OutgoingMessage> batch) {
+        // stop with half the lease left, so a send in progress finishes well before another instance can re-claim
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(leaseSeconds) / 2;
+
+        for (int i = 0; i < batch.size(); i++) {
+            if (System.nanoTime() - deadline >= 0) {
+                release(batch.subList(i, batch.size()));
+                return;
+            }
+            deliver(batch.get(i));
+        }
+    }
+
+    /**
+     * Sends one message and records its result right away, while the claim is still held.
+     */
+    private void deliver(OutgoingMessage message) {
+        Query claimed = query(where("id").is(message.getId()).and("claimId").is(message.getClaimId()));
+        Update result;
+        try {
+            outgoingEmailMessageService.sendMessage(message.getTo(), message.getSubject(), message.getText());
+            LocalDateTime now = LocalDateTime.now(UTC);
+            result = new Update()
+                    .set("status", SENT)
+                    .set("sentDateTime", now)
+                    .set("finishedDateTime", now)
+                    .unset("text")
+                    .unset("claimId");
+        } catch (RuntimeException e) {
+            int attempts = message.getAttempts() + 1;
+            result = new Update()
+                    .set("attempts", attempts)
+                    .set("lastError", e.getMessage())
+                    .unset("claimId");
+            if (attempts >= maxAttempts) {
+                log.error("Giving up on outgoing message {} after {} attempts", message.getId(), attempts, e);
+                result.set("status", FAILED).set("finishedDateTime", LocalDateTime.now(UTC)).unset("text");
+            } else {
+                log.warn("Failed to send outgoing message {}, attempt {}: {}", message.getId(), attempts, e.getMessage());
+                result.set("nextAttemptDateTime", LocalDateTime.now(UTC).plusSeconds(backoffSeconds(attempts)));
+            }
+        }
+        if (mongoTemplate.updateFirst(claimed, result, OutgoingMessage.class).getMatchedCount() == 0) {
+            log.warn("Lost the claim on outgoing message {} before recording its result", message.getId());
+        }
+    }
+
+    /**
+     * Hands messages not sent before the lease deadline back to the next poll.
+     */
+    private void release(List<OutgoingMessage> unsent) {
+        String claimId = unsent.get(0).getClaimId();
+        mongoTemplate.updateMulti(
+                query(where("id").in(unsent.stream().map(OutgoingMessage::getId).toList()).and("claimId").is(claimId)),
+                new Update().set("nextAttemptDateTime", LocalDateTime.now(UTC)).unset("claimId"),
+                OutgoingMessage.class);
+        log.info("Released {} outgoing messages not sent within half the lease", unsent.size());
+    }
+
+    private long backoffSeconds(int attempts) {
+        long backoff = initialBackoffSeconds << Math.min(attempts - 1, 30);
+        return Math.min(backoff, maxBackoffSeconds);
+    }
+
+}
@@ -0,0 +1,63 @@
+package org.auth.multifactor.service;
+
+import lombok.RequiredArgsConstructor;
+import org.auth.multifactor.model.OutgoingMessage;
+import org.auth.multifactor.repository.OutgoingMessageRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static java.time.ZoneOffset.UTC;
+import static org.auth.multifactor.model.enumeration.OutgoingMessageStatus.PENDING;
+
+/**
+ * Stores messages in the outbox collection instead of talking to the mail relay on the request thread.
+ * Delivery is done by {@link OutboxDispatcher}.
+ */
+@Primary
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "application.outbox", name = "enabled", havingValue = "true")
+public class OutboxMessageService implements OutgoingMessageService {
+
+    private final OutgoingMessageRepository outgoingMessageRepository;
+
+    @Override
+    public void sendMessage(String to, String subject, String text) {
+        outgoingMessageRepository.insert(buildMessage(to, subject, text, LocalDateTime.now(UTC)));
+    }
+
+    /**
+     * Stores the whole batch with a single bulk insert; if it fails, every recipient is reported as failed.
+     */
+    @Override
+    public Map<String, RuntimeException> sendMessages(String subject, Map<String, String> textByRecipient) {
+        LocalDateTime now = LocalDateTime.now(UTC);
+        List<OutgoingMessage> messages = textByRecipient.entrySet().stream()
+                .map(entry -> buildMessage(entry.getKey(), subject, entry.getValue(), now))
+                .toList();
+        try {
+            outgoingMessageRepository.insert(messages);
+            return Map.of();
+        } catch (RuntimeException e) {
+            return textByRecipient.keySet().stream().collect(Collectors.toMap(to -> to, to -> e));
+        }
+    }
+
+    private OutgoingMessage buildMessage(String to, String subject, String text, LocalDateTime now) {
+        OutgoingMessage message = new OutgoingMessage();
+        message.setTo(to);
+        message.setSubject(subject);
+        message.setText(text);
+        message.setStatus(PENDING);
+        message.setCreatedDateTime(now);
+        message.setNextAttemptDateTime(now);
+        return message;
+    }
+
+}
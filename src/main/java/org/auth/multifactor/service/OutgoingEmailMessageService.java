@@ -1,28 +1,104 @@
 package org.auth.multifactor.service;
 
-import lombok.RequiredArgsConstructor;
+import org.auth.multifactor.config.VirtualThreadConfig;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
 @Service
-@RequiredArgsConstructor
 public class OutgoingEmailMessageService implements OutgoingMessageService {
 
     @Value("${application.email.from}")
     private String emailFrom;
+    @Value("${application.email.batch-size}")
+    private int batchSize;
 
     private final JavaMailSender emailSender;
+    private final Optional<Executor> mailSendExecutor;
+
+    /**
+     * The mail sender is resolved on first send, keeping JavaMail off the startup path.
+     */
+    public OutgoingEmailMessageService(@Lazy JavaMailSender emailSender,
+                                       @Qualifier(VirtualThreadConfig.MAIL_SEND_EXECUTOR) Optional<Executor> mailSendExecutor) {
+        this.emailSender = emailSender;
+        this.mailSendExecutor = mailSendExecutor;
+    }
 
     @Override
     public void sendMessage(String to, String subject, String text) {
+        SimpleMailMessage message = buildMessage(to, subject, text);
+
+        send(() -> emailSender.send(message));
+    }
+
+    /**
+     * Sends the messages in chunks of {@code application.email.batch-size}, each over a single SMTP connection.
+     */
+    @Override
+    public Map<String, RuntimeException> sendMessages(String subject, Map<String, String> textByRecipient) {
+        List<SimpleMailMessage> messages = textByRecipient.entrySet().stream()
+                .map(entry -> buildMessage(entry.getKey(), subject, entry.getValue()))
+                .toList();
+
+        Map<String, RuntimeException> failures = new HashMap<>();
+        for (int from = 0; from < messages.size(); from += batchSize) {
+            SimpleMailMessage[] chunk = messages.subList(from, Math.min(from + batchSize, messages.size())).toArray(SimpleMailMessage[]::new);
+            try {
+                send(() -> emailSender.send(chunk));
+            } catch (MailSendException e) {
+                // failed messages are keyed by the original message; without them the whole chunk failed
+                if (e.getFailedMessages().isEmpty()) {
+                    Arrays.stream(chunk).forEach(message -> failures.put(message.getTo()[0], e));
+                }
+                e.getFailedMessages().forEach((message, cause) -> {
+                    if (message instanceof SimpleMailMessage simpleMessage) {
+                        failures.put(simpleMessage.getTo()[0], new MailSendException(cause.getMessage(), cause));
+                    }
+                });
+            } catch (MailException e) {
+                Arrays.stream(chunk).forEach(message -> failures.put(message.getTo()[0], e));
+            }
+        }
+        return failures;
+    }
+
+    private SimpleMailMessage buildMessage(String to, String subject, String text) {
         SimpleMailMessage message = new SimpleMailMessage();
         message.setFrom(emailFrom);
         message.setTo(to);
         message.setSubject(subject);
         message.setText(text);
-        emailSender.send(message);
+        return message;
+    }
+
+    private void send(Runnable sending) {
+        if (mailSendExecutor.isEmpty()) {
+            sending.run();
+            return;
+        }
+        try {
+            CompletableFuture.runAsync(sending, mailSendExecutor.get()).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
     }
 
 }
@@ -1,7 +1,27 @@
 package org.auth.multifactor.service;
 
+import java.util.HashMap;
+import java.util.Map;
+
 public interface OutgoingMessageService {
 
     void sendMessage(String to, String subject, String text);
 
+    /**
+     * Sends one message per recipient, carrying on past individual failures.
+     *
+     * @return the recipients that could not be sent to, with the reason
+     */
+    default Map<String, RuntimeException> sendMessages(String subject, Map<String, String> textByRecipient) {
+        Map<String, RuntimeException> failures = new HashMap<>();
+        textByRecipient.forEach((to, text) -> {
+            try {
+                sendMessage(to, subject, text);
+            } catch (RuntimeException e) {
+                failures.put(to, e);
+            }
+        });
+        return failures;
+    }
+
 }
@@ -0,0 +1,121 @@
+package org.auth.multifactor.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.auth.multifactor.service.hashing.OtpHash;
+import org.auth.multifactor.service.hashing.OtpHashingService;
+import org.auth.multifactor.util.HashingExecutor;
+import org.auth.multifactor.util.PasswordUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded pool of ready-made (password, salt, hash) triples, so create does not pay for hashing on the request path.
+ * A single low-priority producer tops the pool up at a capped rate and only while the hashing executor has nothing queued,
+ * so refilling never competes with requests. When the pool is empty, callers compute a triple inline.
+ */
+@Slf4j
+@Component
+public class PrecomputedOtpPool {
+
+    public record PrecomputedOtp(String password, byte[] salt, OtpHash hash) {
+    }
+
+    private final boolean enabled;
+    private final long refillPerSecond;
+    private final BlockingQueue<PrecomputedOtp> pool;
+    private final PasswordUtil passwordUtil;
+    private final OtpHashingService otpHashingService;
+    private final HashingExecutor hashingExecutor;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter refillCounter;
+    private ScheduledExecutorService producer;
+
+    public PrecomputedOtpPool(@Value("${application.otp-pool.enabled}") boolean enabled,
+                              @Value("${application.otp-pool.size}") int size,
+                              @Value("${application.otp-pool.refill-per-second}") long refillPerSecond,
+                              PasswordUtil passwordUtil,
+                              OtpHashingService otpHashingService,
+                              HashingExecutor hashingExecutor,
+                              MeterRegistry meterRegistry) {
+        if (enabled && refillPerSecond <= 0) {
+            throw new IllegalStateException("application.otp-pool.refill-per-second must be positive when the pool is enabled, was " + refillPerSecond);
+        }
+        this.enabled = enabled;
+        this.refillPerSecond = refillPerSecond;
+        this.pool = new ArrayBlockingQueue<>(Math.max(size, 1));
+        this.passwordUtil = passwordUtil;
+        this.otpHashingService = otpHashingService;
+        this.hashingExecutor = hashingExecutor;
+        this.hitCounter = Counter.builder("otp.pool.requests").tag("result", "hit")
+                .description("Create requests served from the precomputed pool")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("otp.pool.requests").tag("result", "miss")
+                .description("Create requests that found the precomputed pool empty")
+                .register(meterRegistry);
+        this.refillCounter = Counter.builder("otp.pool.refills")
+                .description("Triples added to the precomputed pool")
+                .register(meterRegistry);
+        Gauge.builder("otp.pool.size", pool, BlockingQueue::size)
+                .description("Triples ready in the precomputed pool")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("otp-pool-producer-");
+        threadFactory.setDaemon(true);
+        threadFactory.setThreadPriority(Thread.MIN_PRIORITY);
+
+        producer = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        producer.scheduleWithFixedDelay(this::refill, 0, Math.max(1_000_000 / refillPerSecond, 1), TimeUnit.MICROSECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (producer != null) {
+            producer.shutdownNow();
+        }
+    }
+
+    public Optional<PrecomputedOtp> take() {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        PrecomputedOtp precomputedOtp = pool.poll();
+        (precomputedOtp != null ? hitCounter : missCounter).increment();
+        return Optional.ofNullable(precomputedOtp);
+    }
+
+    private void refill() {
+        if (pool.remainingCapacity() == 0 || !hashingExecutor.isIdle()) {
+            return;
+        }
+        try {
+            byte[] salt = passwordUtil.generateSalt();
+            String password = passwordUtil.generateOneTimePassword();
+            if (pool.offer(new PrecomputedOtp(password, salt, otpHashingService.hashOnCallerThread(password, salt)))) {
+                refillCounter.increment();
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to precompute OTP", e);
+        }
+    }
+
+}
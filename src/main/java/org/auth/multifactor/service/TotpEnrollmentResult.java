@@ -0,0 +1,15 @@
+package org.auth.multifactor.service;
+
+import org.auth.multifactor.service.enumeration.OtpValidationStatus;
+
+/**
+ * Outcome of a TOTP enrollment or reset: the status of the emailed code that proves ownership of the email,
+ * and the otpauth URI when a secret was stored.
+ */
+public record TotpEnrollmentResult(OtpValidationStatus proof, String otpauthUri) {
+
+    public boolean enrolled() {
+        return otpauthUri != null;
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,22 @@
+package org.auth.multifactor.service;
+
+import org.auth.multifactor.service.enumeration.OtpValidationStatus;
+
+public interface TotpService {
+
+    /**
+     * Stores a new secret for the email once the emailed code proves the caller owns it.
+     * An email that is already enrolled keeps its secret.
+     *
+     * @return the proof status, and the otpauth URI to load into an authenticator app if a secret was stored
+     */
+    TotpEnrollmentResult enroll(String email, String emailedOtp);
+
+    /**
+     * Replaces the secret of the email once the emailed code proves the caller owns it, enrolled or not.
+     */
+    TotpEnrollmentResult reset(String email, String emailedOtp);
+
+    OtpValidationStatus validate(String email, String code);
+
+}
\ No newline at end of file
@@ -0,0 +1,197 @@
+package org.auth.multifactor.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.auth.multifactor.model.TotpSecret;
+import org.auth.multifactor.repository.TotpSecretRepository;
+import org.auth.multifactor.service.audit.OtpAuditLog;
+import org.auth.multifactor.service.enumeration.OtpValidationStatus;
+import org.auth.multifactor.util.Totp;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.auth.multifactor.service.enumeration.OtpValidationStatus.*;
+
+/**
+ * Authenticator app codes: enrollment stores a secret once and reset replaces it, both only after an emailed code
+ * from {@link OtpService} proves the caller owns the email. Validation is then an HMAC per time step
+ * in the accepted window, with no database write and no mail. A code is accepted at most once per email:
+ * the last accepted time step is kept in memory long enough to cover the window, so replays and older codes
+ * are rejected as USED. The guard is instance-local, like the near cache.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "application.totp", name = "enabled", havingValue = "true")
+public class TotpServiceImpl implements TotpService {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final String issuer;
+    private final String algorithm;
+    private final int digits;
+    private final int periodSeconds;
+    private final int secretBytes;
+    private final int window;
+    private final TotpSecretRepository totpSecretRepository;
+    private final Clock clock;
+    private final MeterRegistry meterRegistry;
+    private final OtpAuditLog otpAuditLog;
+    private final OtpService otpServiceImpl;
+    private final Cache<String, Long> lastAcceptedSteps;
+
+    public TotpServiceImpl(@Value("${application.totp.issuer}") String issuer,
+                           @Value("${application.totp.algorithm}") String algorithm,
+                           @Value("${application.totp.digits}") int digits,
+                           @Value("${application.totp.period-seconds}") int periodSeconds,
+                           @Value("${application.totp.secret-bytes}") int secretBytes,
+                           @Value("${application.totp.window}") int window,
+                           @Value("${application.totp.replay-guard.maximum-size}") long replayGuardSize,
+                           TotpSecretRepository totpSecretRepository,
+                           Clock clock,
+                           MeterRegistry meterRegistry,
+                           OtpAuditLog otpAuditLog,
+                           OtpService otpServiceImpl) {
+        this.issuer = issuer;
+        this.algorithm = algorithm;
+        this.digits = digits;
+        this.periodSeconds = periodSeconds;
+        this.secretBytes = secretBytes;
+        this.window = window;
+        this.totpSecretRepository = totpSecretRepository;
+        this.clock = clock;
+        this.meterRegistry = meterRegistry;
+        this.otpAuditLog = otpAuditLog;
+        this.otpServiceImpl = otpServiceImpl;
+        // a step accepted now can be presented again until the window has moved past it
+        this.lastAcceptedSteps = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds((long) (2 * window + 1) * periodSeconds))
+                .maximumSize(replayGuardSize)
+                .build();
+    }
+
+    @Override
+    public TotpEnrollmentResult enroll(String email, String emailedOtp) {
+        OtpValidationStatus proof = otpServiceImpl.validate(email, emailedOtp);
+        if (proof != VALID) {
+            log.info("TOTP enrollment without a valid emailed code for email: {}", email);
+            return new TotpEnrollmentResult(proof, null);
+        }
+
+        TotpSecret totpSecret = newSecret(email);
+        try {
+            // insert, never save: enrolling again must not replace the secret of an enrolled email, reset does
+            totpSecretRepository.insert(totpSecret);
+        } catch (DuplicateKeyException e) {
+            log.info("TOTP already enrolled for email: {}", email);
+            return new TotpEnrollmentResult(proof, null);
+        }
+        log.info("Enrolled TOTP for email: {}", email);
+
+        return new TotpEnrollmentResult(proof, otpauthUri(totpSecret));
+    }
+
+    @Override
+    public TotpEnrollmentResult reset(String email, String emailedOtp) {
+        OtpValidationStatus proof = otpServiceImpl.validate(email, emailedOtp);
+        if (proof != VALID) {
+            log.info("TOTP reset without a valid emailed code for email: {}", email);
+            return new TotpEnrollmentResult(proof, null);
+        }
+
+        TotpSecret totpSecret = newSecret(email);
+        totpSecretRepository.save(totpSecret);
+        // steps accepted for the old secret say nothing about the new one
+        lastAcceptedSteps.invalidate(email);
+        log.info("Reset TOTP for email: {}", email);
+
+        return new TotpEnrollmentResult(proof, otpauthUri(totpSecret));
+    }
+
+    @Override
+    public OtpValidationStatus validate(String email, String code) {
+        OtpValidationStatus status = doValidate(email, code);
+        meterRegistry.counter("otp.totp.validation", "status", status.name()).increment();
+        otpAuditLog.record(OtpAuditLog.TOTP_VALIDATE, email, status);
+        return status;
+    }
+
+    private OtpValidationStatus doValidate(String email, String code) {
+        Optional<TotpSecret> result = totpSecretRepository.findById(email);
+        if (result.isEmpty()) {
+            log.info("No TOTP enrolled for email: {}", email);
+            return NOT_FOUND;
+        }
+        TotpSecret totpSecret = result.get();
+
+        byte[] presented = code.getBytes(StandardCharsets.US_ASCII);
+        long currentStep = Math.floorDiv(clock.instant().getEpochSecond(), totpSecret.getPeriodSeconds());
+        Long matchedStep = null;
+        for (long step = currentStep - window; step <= currentStep + window; step++) {
+            byte[] expected = Totp.generate(totpSecret.getSecret(), step, totpSecret.getDigits(), totpSecret.getAlgorithm())
+                    .getBytes(StandardCharsets.US_ASCII);
+            if (MessageDigest.isEqual(expected, presented)) {
+                matchedStep = step;
+            }
+        }
+        if (matchedStep == null) {
+            log.info("Invalid TOTP for email: {}", email);
+            return INVALID;
+        }
+
+        long accepted = matchedStep;
+        boolean[] replayed = new boolean[1];
+        lastAcceptedSteps.asMap().compute(email, (key, last) -> {
+            replayed[0] = last != null && last >= accepted;
+            return replayed[0] ? last : accepted;
+        });
+        if (replayed[0]) {
+            log.info("Replayed TOTP for email: {}", email);
+            return USED;
+        }
+        log.info("Validated TOTP for email: {}", email);
+
+        return VALID;
+    }
+
+    private TotpSecret newSecret(String email) {
+        byte[] secret = new byte[secretBytes];
+        RANDOM.nextBytes(secret);
+
+        TotpSecret totpSecret = new TotpSecret();
+        totpSecret.setEmail(email);
+        totpSecret.setSecret(secret);
+        totpSecret.setAlgorithm(algorithm);
+        totpSecret.setDigits(digits);
+        totpSecret.setPeriodSeconds(periodSeconds);
+        totpSecret.setEnrolledDateTime(LocalDateTime.now(clock));
+        return totpSecret;
+    }
+
+    private String otpauthUri(TotpSecret totpSecret) {
+        String label = encode(issuer) + ":" + encode(totpSecret.getEmail());
+        return "otpauth://totp/" + label
+                + "?secret=" + Totp.base32(totpSecret.getSecret())
+                + "&issuer=" + encode(issuer)
+                + "&algorithm=" + totpSecret.getAlgorithm().replaceFirst("^Hmac", "")
+                + "&digits=" + totpSecret.getDigits()
+                + "&period=" + totpSecret.getPeriodSeconds();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+}
\ No newline at end of file
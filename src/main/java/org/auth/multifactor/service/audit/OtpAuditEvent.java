@@ -0,0 +1,7 @@
+package org.auth.multifactor.service.audit;
+
+/**
+ * What is published on the request path: no formatting or conversion, only references and a timestamp.
+ */
+public record OtpAuditEvent(String operation, String email, String outcome, long epochMillis) {
+}
\ No newline at end of file
@@ -0,0 +1,67 @@
+package org.auth.multifactor.service.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.auth.multifactor.util.MpscRingBuffer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+
+/**
+ * Entry point of the audit trail: services record each create and validate outcome into a bounded lock-free ring
+ * buffer, which {@link OtpAuditWriter} drains into the otp_audit collection in bulk.
+ * <p>
+ * Overflow policy: when the buffer is full the new event is dropped and counted in {@code otp.audit.events{result=dropped}},
+ * so audit never blocks or slows down a request. Size the buffer for the write rate times the longest expected
+ * Mongo stall.
+ */
+@Component
+public class OtpAuditLog {
+
+    public static final String CREATE = "create";
+    public static final String VALIDATE = "validate";
+    public static final String TOTP_VALIDATE = "totp_validate";
+
+    private final boolean enabled;
+    private final MpscRingBuffer<OtpAuditEvent> buffer;
+    private final Counter published;
+    private final Counter dropped;
+
+    public OtpAuditLog(@Value("${application.audit.enabled}") boolean enabled,
+                       @Value("${application.audit.buffer-capacity}") int bufferCapacity,
+                       MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.buffer = new MpscRingBuffer<>(enabled ? bufferCapacity : 2);
+        this.published = Counter.builder("otp.audit.events").tag("result", "published").register(meterRegistry);
+        this.dropped = Counter.builder("otp.audit.events").tag("result", "dropped").register(meterRegistry);
+        Gauge.builder("otp.audit.buffer.size", buffer, MpscRingBuffer::size).register(meterRegistry);
+    }
+
+    /**
+     * @param outcome an {@code OtpCreationStatus} or {@code OtpValidationStatus}, stored by name
+     */
+    public void record(String operation, String email, Enum<?> outcome) {
+        if (!enabled) {
+            return;
+        }
+        if (buffer.offer(new OtpAuditEvent(operation, email, outcome.name(), System.currentTimeMillis()))) {
+            published.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * For the single writer thread only.
+     */
+    int drainTo(Consumer<OtpAuditEvent> consumer, int max) {
+        return buffer.drain(consumer, max);
+    }
+
+    long droppedCount() {
+        return (long) dropped.count();
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,148 @@
+package org.auth.multifactor.service.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.auth.multifactor.model.AuditEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.time.ZoneOffset.UTC;
+
+/**
+ * Drains {@link OtpAuditLog} on its own thread and bulk inserts the events, flushing once a batch is full or the
+ * oldest pending event has waited for the flush interval. A failed insert is logged and counted, and its events are
+ * dropped rather than retried, so a Mongo outage cannot back up the buffer indefinitely. Pending events are flushed
+ * on shutdown.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "application.audit", name = "enabled", havingValue = "true")
+public class OtpAuditWriter implements SmartLifecycle {
+
+    // how long the writer sleeps when the buffer is empty
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final OtpAuditLog otpAuditLog;
+    private final MongoTemplate mongoTemplate;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Counter written;
+    private final Counter failed;
+    private final Timer flushTimer;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public OtpAuditWriter(OtpAuditLog otpAuditLog,
+                          MongoTemplate mongoTemplate,
+                          @Value("${application.audit.batch-size}") int batchSize,
+                          @Value("${application.audit.flush-interval-ms}") long flushIntervalMs,
+                          MeterRegistry meterRegistry) {
+        this.otpAuditLog = otpAuditLog;
+        this.mongoTemplate = mongoTemplate;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = Duration.ofMillis(flushIntervalMs).toNanos();
+        this.written = Counter.builder("otp.audit.events").tag("result", "written").register(meterRegistry);
+        this.failed = Counter.builder("otp.audit.events").tag("result", "failed").register(meterRegistry);
+        this.flushTimer = Timer.builder("otp.audit.flush").register(meterRegistry);
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        thread = new Thread(this::run, "otp-audit-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        long oldestPendingNanos = 0;
+        long reportedDrops = 0;
+
+        while (running) {
+            int drained = otpAuditLog.drainTo(event -> batch.add(toDocument(event)), batchSize - batch.size());
+            if (drained > 0 && batch.size() == drained) {
+                oldestPendingNanos = System.nanoTime();
+            }
+
+            if (batch.size() >= batchSize || !batch.isEmpty() && System.nanoTime() - oldestPendingNanos >= flushIntervalNanos) {
+                flush(batch);
+                reportedDrops = reportDrops(reportedDrops);
+            } else if (drained == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+
+        // shutting down: write whatever is left without waiting for the interval
+        do {
+            flush(batch);
+        } while (otpAuditLog.drainTo(event -> batch.add(toDocument(event)), batchSize) > 0);
+        reportDrops(reportedDrops);
+    }
+
+    private void flush(List<AuditEvent> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            mongoTemplate.insert(batch, AuditEvent.class);
+            written.increment(batch.size());
+        } catch (RuntimeException e) {
+            // a writer that dies would silently turn every later event into a drop
+            failed.increment(batch.size());
+            log.error("Failed to write {} audit events", batch.size(), e);
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            batch.clear();
+        }
+    }
+
+    private long reportDrops(long reportedDrops) {
+        long drops = otpAuditLog.droppedCount();
+        if (drops > reportedDrops) {
+            log.warn("Audit buffer full, dropped {} events since the last report", drops - reportedDrops);
+        }
+        return drops;
+    }
+
+    private static AuditEvent toDocument(OtpAuditEvent event) {
+        AuditEvent auditEvent = new AuditEvent();
+        auditEvent.setOperation(event.operation());
+        auditEvent.setEmail(event.email());
+        auditEvent.setOutcome(event.outcome());
+        auditEvent.setOccurredDateTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(event.epochMillis()), UTC));
+        return auditEvent;
+    }
+
+}
\ No newline at end of file
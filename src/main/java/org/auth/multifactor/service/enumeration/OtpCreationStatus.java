@@ -0,0 +1,11 @@
+package org.auth.multifactor.service.enumeration;
+
+/**
+ * Outcome of a create. REUSED and FAILED are only recorded in the audit trail for single creates: REUSED when
+ * the code already sent was kept by the create cooldown or an in-flight create, FAILED when the create threw.
+ */
+public enum OtpCreationStatus {
+
+    CREATED, REUSED, INVALID_EMAIL, RATE_LIMITED, HASHING_FAILED, STORAGE_FAILED, DELIVERY_FAILED, FAILED;
+
+}
@@ -0,0 +1,24 @@
+package org.auth.multifactor.service.hashing;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Server-side secrets (peppers) for {@link HmacOtpHashingStrategy}, as Base64 keyed by key id.
+ * Old key ids must stay configured until every code hashed with them has expired.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "application.hashing.hmac")
+public class HmacHashingProperties {
+
+    private String activeKeyId;
+    private Map<String, String> keys = new HashMap<>();
+
+}
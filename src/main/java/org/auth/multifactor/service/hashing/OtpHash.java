@@ -0,0 +1,6 @@
+package org.auth.multifactor.service.hashing;
+
+import java.util.Map;
+
+public record OtpHash(String algorithm, Map<String, String> parameters, byte[] value) {
+}
@@ -0,0 +1,106 @@
+package org.auth.multifactor.service.hashing;
+
+import org.auth.multifactor.model.Otp;
+import org.auth.multifactor.util.HashingExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Hashes new codes with the configured strategy and verifies stored ones with the strategy they were written with.
+ * Only CPU intensive strategies are routed through the {@link HashingExecutor}.
+ */
+@Service
+public class OtpHashingService {
+
+    private final Map<String, OtpHashingStrategy> strategies;
+    private final OtpHashingStrategy activeStrategy;
+    private final Map<String, String> activeParameters;
+    private final HashingExecutor hashingExecutor;
+
+    public OtpHashingService(@Value("${application.hashing.algorithm}") String algorithm,
+                             List<OtpHashingStrategy> strategies,
+                             HashingExecutor hashingExecutor) {
+        this.strategies = strategies.stream()
+                .collect(Collectors.toUnmodifiableMap(OtpHashingStrategy::getAlgorithm, Function.identity()));
+        this.activeStrategy = getStrategy(algorithm);
+        this.activeParameters = activeStrategy.getParameters();
+        this.hashingExecutor = hashingExecutor;
+    }
+
+    public OtpHash hash(String password, byte[] salt) {
+        return new OtpHash(activeStrategy.getAlgorithm(), activeParameters,
+                run(activeStrategy, () -> activeStrategy.generateHash(password, salt, activeParameters)));
+    }
+
+    /**
+     * Hashes on the calling thread, for background producers that are already off the request path.
+     */
+    public OtpHash hashOnCallerThread(String password, byte[] salt) {
+        return new OtpHash(activeStrategy.getAlgorithm(), activeParameters,
+                activeStrategy.generateHash(password, salt, activeParameters));
+    }
+
+    /**
+     * Non-blocking variant of {@link #hash(String, byte[])}; rejection by the hashing executor is thrown straight away.
+     */
+    public CompletableFuture<OtpHash> hashAsync(String password, byte[] salt) {
+        return runAsync(activeStrategy, () -> activeStrategy.generateHash(password, salt, activeParameters))
+                .thenApply(value -> new OtpHash(activeStrategy.getAlgorithm(), activeParameters, value));
+    }
+
+    /**
+     * Hashes a batch of codes as a single task on the hashing executor, so large batches can be split into
+     * a few chunks instead of occupying the queue with one task per code.
+     */
+    public CompletableFuture<List<OtpHash>> hashAllAsync(List<String> passwords, List<byte[]> salts) {
+        Supplier<List<OtpHash>> hashing = () -> IntStream.range(0, passwords.size())
+                .mapToObj(i -> hashOnCallerThread(passwords.get(i), salts.get(i)))
+                .toList();
+        return activeStrategy.isCpuIntensive() ? hashingExecutor.submit(hashing) : CompletableFuture.completedFuture(hashing.get());
+    }
+
+    public boolean matches(String password, Otp otp) {
+        OtpHashingStrategy strategy = getStrategy(otp);
+        byte[] hash = run(strategy, () -> strategy.generateHash(password, otp.getSalt(), otp.getHashParameters()));
+        return MessageDigest.isEqual(otp.getOtp(), hash);
+    }
+
+    /**
+     * Non-blocking variant of {@link #matches(String, Otp)}; rejection by the hashing executor is thrown straight away.
+     */
+    public CompletableFuture<Boolean> matchesAsync(String password, Otp otp) {
+        OtpHashingStrategy strategy = getStrategy(otp);
+        return runAsync(strategy, () -> strategy.generateHash(password, otp.getSalt(), otp.getHashParameters()))
+                .thenApply(hash -> MessageDigest.isEqual(otp.getOtp(), hash));
+    }
+
+    private byte[] run(OtpHashingStrategy strategy, Supplier<byte[]> hashing) {
+        return strategy.isCpuIntensive() ? hashingExecutor.execute(hashing) : hashing.get();
+    }
+
+    private CompletableFuture<byte[]> runAsync(OtpHashingStrategy strategy, Supplier<byte[]> hashing) {
+        return strategy.isCpuIntensive() ? hashingExecutor.submit(hashing) : CompletableFuture.completedFuture(hashing.get());
+    }
+
+    private OtpHashingStrategy getStrategy(Otp otp) {
+        return getStrategy(otp.getHashAlgorithm() == null ? Pbkdf2OtpHashingStrategy.ALGORITHM : otp.getHashAlgorithm());
+    }
+
+    private OtpHashingStrategy getStrategy(String algorithm) {
+        OtpHashingStrategy strategy = strategies.get(algorithm);
+        if (strategy == null) {
+            throw new IllegalStateException("Unknown OTP hashing algorithm: " + algorithm);
+        }
+        return strategy;
+    }
+
+}
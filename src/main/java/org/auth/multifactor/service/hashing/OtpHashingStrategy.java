@@ -0,0 +1,25 @@
+package org.auth.multifactor.service.hashing;
+
+import java.util.Map;
+
+/**
+ * A way of hashing one time passwords. The algorithm id and the parameters a hash was produced with are stored
+ * next to it, so a record can always be verified with the strategy that wrote it, whatever is configured today.
+ */
+public interface OtpHashingStrategy {
+
+    String getAlgorithm();
+
+    /**
+     * Parameters used for new hashes, stored with the record.
+     */
+    Map<String, String> getParameters();
+
+    byte[] generateHash(String password, byte[] salt, Map<String, String> parameters);
+
+    /**
+     * Whether hashing is costly enough to be worth moving onto the hashing executor.
+     */
+    boolean isCpuIntensive();
+
+}
@@ -0,0 +1,49 @@
+package org.auth.multifactor.service.hashing;
+
+import lombok.RequiredArgsConstructor;
+import org.auth.multifactor.util.PasswordUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * PBKDF2WithHmacSHA512. Records written before algorithms were stored have no parameters
+ * and are verified with {@link PasswordUtil}'s default iteration count.
+ */
+@Component
+@RequiredArgsConstructor
+public class Pbkdf2OtpHashingStrategy implements OtpHashingStrategy {
+
+    public static final String ALGORITHM = "pbkdf2-sha512";
+    private static final String ITERATIONS = "iterations";
+
+    @Value("${application.hashing.pbkdf2.iterations}")
+    private Integer iterations;
+
+    private final PasswordUtil passwordUtil;
+
+    @Override
+    public String getAlgorithm() {
+        return ALGORITHM;
+    }
+
+    @Override
+    public Map<String, String> getParameters() {
+        return Map.of(ITERATIONS, String.valueOf(iterations));
+    }
+
+    @Override
+    public byte[] generateHash(String password, byte[] salt, Map<String, String> parameters) {
+        if (parameters == null || !parameters.containsKey(ITERATIONS)) {
+            return passwordUtil.generateHash(password, salt);
+        }
+        return passwordUtil.generateHash(password, salt, Integer.parseInt(parameters.get(ITERATIONS)));
+    }
+
+    @Override
+    public boolean isCpuIntensive() {
+        return true;
+    }
+
+}
@@ -0,0 +1,235 @@
+package org.auth.multifactor.service.mail;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.Address;
+import jakarta.mail.AuthenticationFailedException;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link JavaMailSenderImpl} that keeps up to {@code maxConnections} SMTP connections open and reuses them across
+ * sends, instead of connecting, greeting and authenticating for every message.
+ * <p>
+ * A connection that sat idle for a while is checked with a NOOP before reuse, and dropped after
+ * {@code maxIdle} or {@code maxMessagesPerConnection} messages. When the server closes a connection mid-send,
+ * the message is retried once on a fresh connection.
+ * <p>
+ * A send borrows one connection for all of its messages, so batch sends also reuse a single connection.
+ */
+@Slf4j
+public class PooledJavaMailSender extends JavaMailSenderImpl implements DisposableBean {
+
+    private final int maxMessagesPerConnection;
+    private final long maxIdleNanos;
+    private final long validateAfterIdleNanos;
+    private final long borrowTimeoutNanos;
+
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledTransport> idle = new LinkedBlockingDeque<>();
+    private final AtomicInteger open = new AtomicInteger();
+
+    private final Counter reusedCounter;
+    private final Counter openedCounter;
+    private final Timer sendTimer;
+    private final Timer failedSendTimer;
+
+    public PooledJavaMailSender(int maxConnections, int maxMessagesPerConnection, long maxIdleSeconds,
+                                long validateAfterIdleMillis, long borrowTimeoutMillis, MeterRegistry meterRegistry) {
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.maxIdleNanos = TimeUnit.SECONDS.toNanos(maxIdleSeconds);
+        this.validateAfterIdleNanos = TimeUnit.MILLISECONDS.toNanos(validateAfterIdleMillis);
+        this.borrowTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMillis);
+        this.permits = new Semaphore(maxConnections, true);
+
+        this.reusedCounter = Counter.builder("otp.mail.connections")
+                .description("SMTP connections handed out for a send")
+                .tag("reused", "true")
+                .register(meterRegistry);
+        this.openedCounter = Counter.builder("otp.mail.connections")
+                .description("SMTP connections handed out for a send")
+                .tag("reused", "false")
+                .register(meterRegistry);
+        this.sendTimer = Timer.builder("otp.mail.send")
+                .description("Time to send one message over an open SMTP connection")
+                .tag("result", "success")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.failedSendTimer = Timer.builder("otp.mail.send")
+                .description("Time to send one message over an open SMTP connection")
+                .tag("result", "failure")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("otp.mail.pool.open", open, AtomicInteger::get)
+                .description("Open SMTP connections, idle or in use")
+                .register(meterRegistry);
+        Gauge.builder("otp.mail.pool.idle", idle, LinkedBlockingDeque::size)
+                .description("Open SMTP connections waiting for a send")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) throws MailException {
+        Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+        PooledTransport transport = borrow(mimeMessages, originalMessages);
+        try {
+            for (int i = 0; i < mimeMessages.length; i++) {
+                try {
+                    prepare(mimeMessages[i]);
+                    if (transport == null) {
+                        transport = connect();
+                    }
+                    try {
+                        send(transport, mimeMessages[i]);
+                    } catch (MessagingException e) {
+                        if (transport.transport.isConnected()) {
+                            // rejected by the server, the connection itself is fine
+                            throw e;
+                        }
+                        log.debug("SMTP connection was closed by the server, reconnecting", e);
+                        close(transport);
+                        // stays null if reconnecting fails, so the next message tries again
+                        transport = null;
+                        transport = connect();
+                        send(transport, mimeMessages[i]);
+                    }
+                } catch (MessagingException e) {
+                    failedMessages.put(originalMessages != null ? originalMessages[i] : mimeMessages[i], e);
+                }
+            }
+        } finally {
+            if (transport != null) {
+                release(transport);
+            }
+            permits.release();
+        }
+
+        if (!failedMessages.isEmpty()) {
+            throw new MailSendException(failedMessages);
+        }
+    }
+
+    private void send(PooledTransport transport, MimeMessage mimeMessage) throws MessagingException {
+        Address[] addresses = mimeMessage.getAllRecipients();
+        long start = System.nanoTime();
+        try {
+            transport.transport.sendMessage(mimeMessage, addresses != null ? addresses : new Address[0]);
+            transport.sent++;
+            sendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } catch (MessagingException e) {
+            failedSendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private PooledTransport borrow(MimeMessage[] mimeMessages, Object[] originalMessages) {
+        try {
+            if (!permits.tryAcquire(borrowTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new MailSendException("Timed out waiting for an SMTP connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MailSendException("Interrupted while waiting for an SMTP connection", e);
+        }
+
+        try {
+            PooledTransport transport;
+            while ((transport = idle.pollFirst()) != null) {
+                long idleNanos = System.nanoTime() - transport.lastUsed;
+                if (idleNanos > maxIdleNanos || (idleNanos > validateAfterIdleNanos && !transport.transport.isConnected())) {
+                    close(transport);
+                    continue;
+                }
+                reusedCounter.increment();
+                return transport;
+            }
+            return connect();
+        } catch (AuthenticationFailedException e) {
+            permits.release();
+            throw new MailAuthenticationException(e);
+        } catch (MessagingException e) {
+            permits.release();
+            Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+            for (int i = 0; i < mimeMessages.length; i++) {
+                failedMessages.put(originalMessages != null ? originalMessages[i] : mimeMessages[i], e);
+            }
+            throw new MailSendException("Mail server connection failed", e, failedMessages);
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private PooledTransport connect() throws MessagingException {
+        Transport transport = connectTransport();
+        open.incrementAndGet();
+        openedCounter.increment();
+        return new PooledTransport(transport);
+    }
+
+    private void release(PooledTransport transport) {
+        transport.lastUsed = System.nanoTime();
+        if (transport.sent >= maxMessagesPerConnection || !idle.offerFirst(transport)) {
+            close(transport);
+        }
+    }
+
+    private void close(PooledTransport transport) {
+        open.decrementAndGet();
+        try {
+            transport.transport.close();
+        } catch (MessagingException e) {
+            log.debug("Failed to close SMTP connection", e);
+        }
+    }
+
+    private static void prepare(MimeMessage mimeMessage) throws MessagingException {
+        if (mimeMessage.getSentDate() == null) {
+            mimeMessage.setSentDate(new Date());
+        }
+        String messageId = mimeMessage.getMessageID();
+        mimeMessage.saveChanges();
+        if (messageId != null) {
+            // preserve explicitly specified message id
+            mimeMessage.setHeader("Message-ID", messageId);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        PooledTransport transport;
+        while ((transport = idle.pollFirst()) != null) {
+            close(transport);
+        }
+    }
+
+    private static final class PooledTransport {
+
+        private final Transport transport;
+        private long lastUsed = System.nanoTime();
+        private int sent;
+
+        private PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+
+    }
+
+}
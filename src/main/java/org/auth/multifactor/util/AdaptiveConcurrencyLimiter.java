@@ -0,0 +1,90 @@
+package org.auth.multifactor.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounds requests in flight with a limit adjusted by AIMD on observed latency: every request completing within its
+ * latency threshold adds 1/limit, so the limit grows by about one per round of requests, and a request that is slow
+ * or fails multiplies it by the backoff ratio, at most once per decrease interval so a single congestion episode is
+ * not counted once per queued request. Low priority requests may only use a share of the limit, leaving the rest
+ * to high priority ones.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    public enum Priority {
+        HIGH, LOW
+    }
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double lowPriorityShare;
+    private final long decreaseIntervalNanos;
+    private final LongSupplier nanoTime;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double limit;
+    private long lastDecreaseNanos;
+
+    /**
+     * @param backoffRatio     factor applied to the limit on overload, e.g. 0.9
+     * @param lowPriorityShare share of the limit low priority requests may occupy, e.g. 0.8
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+                                      double lowPriorityShare, long decreaseIntervalNanos, LongSupplier nanoTime) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.lowPriorityShare = lowPriorityShare;
+        this.decreaseIntervalNanos = decreaseIntervalNanos;
+        this.nanoTime = nanoTime;
+        this.lastDecreaseNanos = nanoTime.getAsLong() - decreaseIntervalNanos;
+    }
+
+    /**
+     * @return true if the request may proceed, in which case {@link #release} must be called when it completes
+     */
+    public boolean tryAcquire(Priority priority) {
+        double current = limit;
+        int allowed = priority == Priority.HIGH ? (int) current : Math.max(1, (int) (current * lowPriorityShare));
+        while (true) {
+            int active = inFlight.get();
+            if (active >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(active, active + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @param overloaded whether the request exceeded its latency threshold or failed on the server side
+     */
+    public void release(boolean overloaded) {
+        int active = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (overloaded) {
+                long now = nanoTime.getAsLong();
+                if (now - lastDecreaseNanos >= decreaseIntervalNanos) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    lastDecreaseNanos = now;
+                }
+            } else if (active * 2 >= limit) {
+                // only grow while the limit is actually being used
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+}
\ No newline at end of file
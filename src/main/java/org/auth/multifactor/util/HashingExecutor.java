@@ -0,0 +1,91 @@
+package org.auth.multifactor.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.auth.multifactor.service.exception.ServiceUnavailableException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Runs password hashing on a fixed, core-sized pool with a bounded queue, so a burst of requests
+ * cannot put more hashing work on the CPU than it has cores. Work that does not fit in the queue
+ * is rejected straight away with a {@link ServiceUnavailableException}.
+ */
+@Component
+public class HashingExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final long retryAfterSeconds;
+    private final Timer queueWaitTimer;
+    private final Counter rejectedCounter;
+
+    public HashingExecutor(@Value("${application.hashing.pool-size}") int poolSize,
+                           @Value("${application.hashing.queue-capacity}") int queueCapacity,
+                           @Value("${application.hashing.retry-after-seconds}") long retryAfterSeconds,
+                           MeterRegistry meterRegistry) {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("otp-hashing-");
+        threadFactory.setDaemon(true);
+
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.queueWaitTimer = Timer.builder("otp.hashing.queue.wait")
+                .description("Time a hashing task waited in the queue before a worker picked it up")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("otp.hashing.rejected")
+                .description("Hashing tasks rejected because the queue was full")
+                .register(meterRegistry);
+        Gauge.builder("otp.hashing.queue.size", executor, e -> e.getQueue().size())
+                .description("Hashing tasks waiting for a worker")
+                .register(meterRegistry);
+        Gauge.builder("otp.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Hashing workers currently busy")
+                .register(meterRegistry);
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        long submittedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                queueWaitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return task.get();
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new ServiceUnavailableException("Too many pending requests, try again later", retryAfterSeconds);
+        }
+    }
+
+    public <T> T execute(Supplier<T> task) {
+        try {
+            return submit(task).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * True when nothing is queued and at least one worker is free, i.e. extra hashing would not delay a request.
+     */
+    public boolean isIdle() {
+        return executor.getQueue().isEmpty() && executor.getActiveCount() < executor.getCorePoolSize();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+}
@@ -13,6 +13,8 @@ import java.security.spec.KeySpec;
 @Component
 public class PasswordUtil {
 
+    public static final int HASH_ITERATIONS = 210000;
+
     public byte[] generateSalt() {
         byte[] salt = new byte[16];
         new SecureRandom().nextBytes(salt);
@@ -24,7 +26,11 @@ public class PasswordUtil {
     }
 
     public byte[] generateHash(String password, byte[] salt) {
-        KeySpec spec = new PBEKeySpec(password.toCharArray(), salt, 210000, 128);
+        return generateHash(password, salt, HASH_ITERATIONS);
+    }
+
+    public byte[] generateHash(String password, byte[] salt, int iterations) {
+        KeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, 128);
         try {
             SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA512");
             return factory.generateSecret(spec).getEncoded();
@@ -0,0 +1,56 @@
+package org.auth.multifactor.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets keyed by an arbitrary string, implemented with the generic cell rate algorithm: each key only
+ * stores the time at which its bucket will be full again, updated with a compare-and-set, so checking a key
+ * takes no lock. Keys are held in a size-bounded cache and dropped once idle for longer than a full refill,
+ * at which point their bucket would have been full anyway.
+ */
+public class RateLimiter {
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final Cache<String, AtomicLong> buckets;
+
+    /**
+     * @param capacity        requests allowed in a burst
+     * @param refillPerMinute tokens added back per minute
+     * @param maximumKeys     bound on the number of tracked keys
+     */
+    public RateLimiter(int capacity, int refillPerMinute, long maximumKeys) {
+        this.emissionIntervalNanos = Duration.ofMinutes(1).toNanos() / refillPerMinute;
+        this.burstToleranceNanos = emissionIntervalNanos * (capacity - 1);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumKeys)
+                .expireAfterAccess(Duration.ofNanos(emissionIntervalNanos + burstToleranceNanos))
+                .build();
+    }
+
+    /**
+     * Takes a token for the key if one is available.
+     *
+     * @return 0 when the request is allowed, otherwise the nanoseconds until a token is available
+     */
+    public long tryAcquire(String key) {
+        AtomicLong theoreticalArrival = buckets.get(key, k -> new AtomicLong(Long.MIN_VALUE));
+        while (true) {
+            long now = System.nanoTime();
+            long current = theoreticalArrival.get();
+            long arrival = current == Long.MIN_VALUE || current - now < 0 ? now : current;
+            long waitNanos = arrival - burstToleranceNanos - now;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (theoreticalArrival.compareAndSet(current, arrival + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,80 @@
+package org.auth.multifactor.util;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A set of short-lived keys in bounded memory: one Bloom filter per bucket of expiry times, dropped whole once
+ * every key in it has expired. Keys must be uniformly distributed bytes, e.g. MACs, at least 16 bytes long.
+ * A false positive reports a new key as already present, at the configured probability; keys are never lost.
+ */
+public class RotatingBloomFilter {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final long bucketSeconds;
+    private final long bits;
+    private final int hashes;
+    private final ConcurrentNavigableMap<Long, Bucket> buckets = new ConcurrentSkipListMap<>();
+
+    public RotatingBloomFilter(long bucketSeconds, long expectedInsertionsPerBucket, double falsePositiveProbability) {
+        this.bucketSeconds = bucketSeconds;
+        this.bits = Math.max(Long.SIZE, (long) Math.ceil(-expectedInsertionsPerBucket * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2))));
+        this.hashes = Math.max(1, (int) Math.round((double) bits / expectedInsertionsPerBucket * Math.log(2)));
+    }
+
+    /**
+     * Adds a key that expires at the given time.
+     *
+     * @return true if the key was not present before
+     */
+    public boolean add(byte[] key, long expiresAtEpochSecond, long nowEpochSecond) {
+        // a bucket holds expiries in [index * bucketSeconds, (index + 1) * bucketSeconds)
+        buckets.headMap(Math.floorDiv(nowEpochSecond, bucketSeconds)).clear();
+        return buckets.computeIfAbsent(Math.floorDiv(expiresAtEpochSecond, bucketSeconds), index -> new Bucket()).add(key);
+    }
+
+    public int bucketCount() {
+        return buckets.size();
+    }
+
+    public long bitsPerBucket() {
+        return bits;
+    }
+
+    private class Bucket {
+
+        private final AtomicLongArray words = new AtomicLongArray((int) ((bits + Long.SIZE - 1) / Long.SIZE));
+        private final Object[] locks = new Object[LOCK_STRIPES];
+
+        Bucket() {
+            for (int i = 0; i < LOCK_STRIPES; i++) {
+                locks[i] = new Object();
+            }
+        }
+
+        boolean add(byte[] key) {
+            ByteBuffer buffer = ByteBuffer.wrap(key);
+            long h1 = buffer.getLong();
+            long h2 = buffer.getLong() | 1;
+
+            // check-then-set must not interleave for the same key, or two concurrent adds could both see it as new
+            synchronized (locks[(int) Math.floorMod(h1, (long) LOCK_STRIPES)]) {
+                boolean present = true;
+                for (int i = 0; i < hashes; i++) {
+                    long bit = Math.floorMod(h1 + i * h2, bits);
+                    long mask = 1L << bit;
+                    int word = (int) (bit >>> 6);
+                    if ((words.getAndUpdate(word, value -> value | mask) & mask) == 0) {
+                        present = false;
+                    }
+                }
+                return !present;
+            }
+        }
+
+    }
+
+}
\ No newline at end of file
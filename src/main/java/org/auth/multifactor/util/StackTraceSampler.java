@@ -0,0 +1,54 @@
+package org.auth.multifactor.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides whether an exception is worth a stack trace in the log: the first one of each type is, then at most
+ * one per interval, so a flood of identical client errors cannot turn into a flood of log I/O.
+ */
+@Component
+public class StackTraceSampler {
+
+    /**
+     * @param logStackTrace whether this occurrence should be logged with its stack trace
+     * @param suppressed    occurrences of the same type logged without a stack trace since the previous sample
+     */
+    public record Sample(boolean logStackTrace, long suppressed) {
+    }
+
+    private final long intervalNanos;
+    private final Map<Class<?>, Window> windows = new ConcurrentHashMap<>();
+
+    public StackTraceSampler(@Value("${application.logging.stack-trace-interval-seconds}") long intervalSeconds) {
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(intervalSeconds);
+    }
+
+    public Sample sample(Throwable throwable) {
+        Window window = windows.computeIfAbsent(throwable.getClass(), type -> new Window(System.nanoTime()));
+        long now = System.nanoTime();
+        long next = window.next.get();
+        if (now - next >= 0 && window.next.compareAndSet(next, now + intervalNanos)) {
+            return new Sample(true, window.suppressed.getAndSet(0));
+        }
+        window.suppressed.incrementAndGet();
+        return new Sample(false, 0);
+    }
+
+    private static final class Window {
+
+        private final AtomicLong next;
+        private final AtomicLong suppressed = new AtomicLong();
+
+        private Window(long next) {
+            this.next = new AtomicLong(next);
+        }
+
+    }
+
+}
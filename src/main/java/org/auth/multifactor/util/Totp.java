@@ -0,0 +1,64 @@
+package org.auth.multifactor.util;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+
+/**
+ * Time-based one-time passwords (RFC 6238) over HOTP (RFC 4226) truncation, and the Base32 encoding
+ * authenticator apps expect for secrets.
+ */
+public final class Totp {
+
+    private static final int[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000, 100_000_000};
+    private static final char[] BASE32 = "ABCDEFGHIJKLMNOPQRSTUVWXYZ234567".toCharArray();
+
+    private Totp() {
+    }
+
+    /**
+     * @param algorithm a JCA MAC name, e.g. HmacSHA1
+     * @param step      the time step, seconds since the epoch divided by the period
+     */
+    public static String generate(byte[] secret, long step, int digits, String algorithm) {
+        byte[] hmac;
+        try {
+            Mac mac = Mac.getInstance(algorithm);
+            mac.init(new SecretKeySpec(secret, algorithm));
+            hmac = mac.doFinal(ByteBuffer.allocate(Long.BYTES).putLong(step).array());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to compute " + algorithm + " TOTP", e);
+        }
+
+        int offset = hmac[hmac.length - 1] & 0x0f;
+        int binary = (hmac[offset] & 0x7f) << 24
+                | (hmac[offset + 1] & 0xff) << 16
+                | (hmac[offset + 2] & 0xff) << 8
+                | (hmac[offset + 3] & 0xff);
+        String code = Integer.toString(binary % POWERS_OF_TEN[digits]);
+        return "0".repeat(digits - code.length()) + code;
+    }
+
+    /**
+     * Unpadded RFC 4648 Base32.
+     */
+    public static String base32(byte[] bytes) {
+        StringBuilder encoded = new StringBuilder((bytes.length * 8 + 4) / 5);
+        int buffer = 0;
+        int bits = 0;
+        for (byte b : bytes) {
+            buffer = buffer << 8 | b & 0xff;
+            bits += 8;
+            while (bits >= 5) {
+                encoded.append(BASE32[buffer >>> bits - 5 & 0x1f]);
+                bits -= 5;
+            }
+        }
+        if (bits > 0) {
+            encoded.append(BASE32[buffer << 5 - bits & 0x1f]);
+        }
+        return encoded.toString();
+    }
+
+}
\ No newline at end of file
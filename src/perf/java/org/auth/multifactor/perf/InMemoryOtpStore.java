@@ -0,0 +1,54 @@
+package org.auth.multifactor.perf;
+
+import org.auth.multifactor.model.Otp;
+import org.auth.multifactor.repository.OtpStore;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stand-in for Mongo in benchmarks and load tests. Only the latest {@link Otp} per email is kept,
+ * which is all the service ever reads, so long runs do not grow the heap.
+ */
+public class InMemoryOtpStore implements OtpStore {
+
+    private final Map<String, Otp> latestByEmail = new ConcurrentHashMap<>();
+
+    @Override
+    public Optional<Otp> findLatest(String email) {
+        return Optional.ofNullable(latestByEmail.get(email));
+    }
+
+    @Override
+    public void save(Otp otp) {
+        if (otp.getId() == null) {
+            otp.setId(UUID.randomUUID().toString());
+        }
+        latestByEmail.merge(otp.getEmail(), otp, (current, saved) ->
+                !current.getId().equals(saved.getId())
+                        && saved.getExpirationDateTime().isBefore(current.getExpirationDateTime()) ? current : saved);
+    }
+
+    @Override
+    public void saveAll(List<Otp> otps) {
+        otps.forEach(this::save);
+    }
+
+    @Override
+    public boolean markUsed(Otp otp, LocalDateTime now) {
+        boolean[] marked = new boolean[1];
+        latestByEmail.computeIfPresent(otp.getEmail(), (email, latest) -> {
+            if (latest.getId().equals(otp.getId()) && !latest.isUsed() && !latest.getExpirationDateTime().isBefore(now)) {
+                latest.setUsed(true);
+                marked[0] = true;
+            }
+            return latest;
+        });
+        return marked[0];
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,39 @@
+package org.auth.multifactor.perf;
+
+import org.auth.multifactor.service.OutgoingMessageService;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Mail relay stand-in. Remembers the last text sent to each recipient so callers can read back
+ * the generated code, and can simulate a slow relay with a fixed latency per message.
+ */
+public class InMemoryOutgoingMessageService implements OutgoingMessageService {
+
+    private final Map<String, String> lastTextByRecipient = new ConcurrentHashMap<>();
+    private final long latencyNanos;
+
+    public InMemoryOutgoingMessageService() {
+        this(Duration.ZERO);
+    }
+
+    public InMemoryOutgoingMessageService(Duration latency) {
+        this.latencyNanos = latency.toNanos();
+    }
+
+    @Override
+    public void sendMessage(String to, String subject, String text) {
+        if (latencyNanos > 0) {
+            LockSupport.parkNanos(latencyNanos);
+        }
+        lastTextByRecipient.put(to, text);
+    }
+
+    public String getLastText(String to) {
+        return lastTextByRecipient.get(to);
+    }
+
+}
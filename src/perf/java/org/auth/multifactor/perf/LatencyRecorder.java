@@ -0,0 +1,52 @@
+package org.auth.multifactor.perf;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Collects raw latency samples and reports exact percentiles. Guarded by a lock rather than a monitor
+ * so virtual threads recording into it are never pinned.
+ */
+public class LatencyRecorder {
+
+    public record Snapshot(long count, double p50Millis, double p99Millis, double p999Millis, double maxMillis) {
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private long[] samples = new long[4096];
+    private int size;
+
+    public void record(long nanos) {
+        lock.lock();
+        try {
+            if (size == samples.length) {
+                samples = Arrays.copyOf(samples, size * 2);
+            }
+            samples[size++] = nanos;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Snapshot snapshot() {
+        long[] sorted;
+        lock.lock();
+        try {
+            sorted = Arrays.copyOf(samples, size);
+        } finally {
+            lock.unlock();
+        }
+        Arrays.sort(sorted);
+        return new Snapshot(sorted.length, percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999),
+                sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1_000_000.0);
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+}
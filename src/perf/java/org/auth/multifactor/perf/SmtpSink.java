@@ -0,0 +1,145 @@
+package org.auth.multifactor.perf;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Minimal SMTP server on a loopback port that accepts every message and keeps the last body per recipient, so the
+ * real mail sender and its connection pool can be exercised without a relay. Each accepted message is delayed by
+ * a fixed latency to stand in for a slow relay. Only plain-text, 7bit bodies are decoded.
+ */
+public class SmtpSink implements Closeable {
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "smtp-sink");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final long latencyNanos;
+    private final Map<String, String> lastTextByRecipient = new ConcurrentHashMap<>();
+    private final AtomicLong connectionCount = new AtomicLong();
+    private final AtomicLong messageCount = new AtomicLong();
+
+    public SmtpSink(Duration latency) throws IOException {
+        this.latencyNanos = latency.toNanos();
+        this.serverSocket = new ServerSocket(0, 1024, InetAddress.getLoopbackAddress());
+        connections.execute(this::accept);
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public String getLastText(String to) {
+        return lastTextByRecipient.get(to);
+    }
+
+    public long getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    public long getMessageCount() {
+        return messageCount.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        connections.shutdownNow();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connectionCount.incrementAndGet();
+                connections.execute(() -> serve(socket));
+            } catch (IOException e) {
+                // closed
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             OutputStream out = socket.getOutputStream()) {
+            reply(out, "220 smtp-sink ready");
+            List<String> recipients = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() < 4 ? line.toUpperCase(Locale.ROOT) : line.substring(0, 4).toUpperCase(Locale.ROOT);
+                switch (command) {
+                    case "EHLO", "HELO" -> reply(out, "250 smtp-sink");
+                    case "MAIL" -> {
+                        recipients.clear();
+                        reply(out, "250 OK");
+                    }
+                    case "RCPT" -> {
+                        recipients.add(line.substring(line.indexOf('<') + 1, line.lastIndexOf('>')));
+                        reply(out, "250 OK");
+                    }
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        String text = readBody(in);
+                        if (latencyNanos > 0) {
+                            LockSupport.parkNanos(latencyNanos);
+                        }
+                        recipients.forEach(recipient -> lastTextByRecipient.put(recipient, text));
+                        messageCount.incrementAndGet();
+                        reply(out, "250 OK");
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    case "RSET", "NOOP" -> reply(out, "250 OK");
+                    default -> reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (IOException e) {
+            // client went away
+        }
+    }
+
+    private static String readBody(BufferedReader in) throws IOException {
+        StringBuilder body = new StringBuilder();
+        boolean headers = true;
+        String line;
+        while ((line = in.readLine()) != null && !".".equals(line)) {
+            if (headers) {
+                headers = !line.isEmpty();
+                continue;
+            }
+            if (!body.isEmpty()) {
+                body.append('\n');
+            }
+            body.append(line.startsWith("..") ? line.substring(1) : line);
+        }
+        return body.toString();
+    }
+
+    private static void reply(OutputStream out, String reply) throws IOException {
+        out.write((reply + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+}
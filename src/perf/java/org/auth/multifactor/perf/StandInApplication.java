@@ -0,0 +1,40 @@
+package org.auth.multifactor.perf;
+
+import org.auth.multifactor.MultiFactorAuthentication;
+import org.auth.multifactor.repository.OtpStore;
+import org.auth.multifactor.service.OutgoingMessageService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+
+/**
+ * Boots the real application with the "perf" profile, which switches off Mongo auto-configuration,
+ * and registers the given stand-ins as the primary store and mail beans. Without a mail stand-in the
+ * application's own mail sender is used, e.g. against an {@link SmtpSink}.
+ */
+public final class StandInApplication {
+
+    private StandInApplication() {
+    }
+
+    public static ConfigurableApplicationContext run(WebApplicationType webApplicationType,
+                                                     OtpStore otpStore,
+                                                     OutgoingMessageService outgoingMessageService,
+                                                     String... args) {
+        return new SpringApplicationBuilder(MultiFactorAuthentication.class)
+                .web(webApplicationType)
+                .profiles("perf")
+                .initializers(context -> {
+                    GenericApplicationContext genericContext = (GenericApplicationContext) context;
+                    genericContext.registerBean("otpStore", OtpStore.class,
+                            () -> otpStore, definition -> definition.setPrimary(true));
+                    if (outgoingMessageService != null) {
+                        genericContext.registerBean("standInOutgoingMessageService", OutgoingMessageService.class,
+                                () -> outgoingMessageService, definition -> definition.setPrimary(true));
+                    }
+                })
+                .run(args);
+    }
+
+}
@@ -0,0 +1,123 @@
+package org.auth.multifactor.perf.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import jakarta.validation.ConstraintViolationException;
+import org.auth.multifactor.controller.OtpResponses;
+import org.auth.multifactor.service.enumeration.OtpValidationStatus;
+import org.auth.multifactor.util.StackTraceSampler;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+
+/**
+ * Per-request overhead outside the service: building a response body, and logging an outcome line or a client error
+ * to a file. The async appender discards events once its queue fills up, so under sustained overload its figures are
+ * what request threads see, not what reaches the file.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class HotPathBenchmark {
+
+    private final String email = "benchmark@benchmark.com";
+
+    @State(Scope.Benchmark)
+    public static class LoggingState {
+
+        @Param({"sync", "async"})
+        public String appender;
+
+        @Param({"full", "sampled"})
+        public String stackTraces;
+
+        public Logger logger;
+        public StackTraceSampler stackTraceSampler = new StackTraceSampler(60);
+        public ConstraintViolationException clientError = new ConstraintViolationException("create.email: must be a well-formed email address", Set.of());
+
+        private LoggerContext context;
+
+        @Setup
+        public void setUp() {
+            context = new LoggerContext();
+            PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+            encoder.setContext(context);
+            encoder.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p [%t] %logger{39} : %m%n%ex");
+            encoder.start();
+
+            FileAppender<ILoggingEvent> fileAppender = new FileAppender<>();
+            fileAppender.setContext(context);
+            fileAppender.setFile("target/hot-path-benchmark.log");
+            fileAppender.setAppend(false);
+            fileAppender.setEncoder(encoder);
+            fileAppender.start();
+
+            Appender<ILoggingEvent> rootAppender = fileAppender;
+            if ("async".equals(appender)) {
+                AsyncAppender asyncAppender = new AsyncAppender();
+                asyncAppender.setContext(context);
+                asyncAppender.setQueueSize(8192);
+                asyncAppender.setNeverBlock(true);
+                asyncAppender.addAppender(fileAppender);
+                asyncAppender.start();
+                rootAppender = asyncAppender;
+            }
+
+            logger = context.getLogger(HotPathBenchmark.class);
+            logger.setLevel(Level.INFO);
+            logger.setAdditive(false);
+            logger.addAppender(rootAppender);
+        }
+
+        @TearDown
+        public void tearDown() {
+            context.stop();
+        }
+
+    }
+
+    @Benchmark
+    public ResponseEntity<String> formattedResponse() {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(format("Invalid code for email: %s", email));
+    }
+
+    @Benchmark
+    public ResponseEntity<String> precomputedResponse() {
+        return OtpResponses.validated(OtpValidationStatus.INVALID);
+    }
+
+    @Benchmark
+    public void logOutcome(LoggingState state) {
+        state.logger.info("Invalid OTP password for email: {}", email);
+    }
+
+    @Benchmark
+    public void logClientError(LoggingState state) {
+        if ("full".equals(state.stackTraces)) {
+            state.logger.error(state.clientError.getMessage(), state.clientError);
+            return;
+        }
+        StackTraceSampler.Sample sample = state.stackTraceSampler.sample(state.clientError);
+        if (sample.logStackTrace()) {
+            state.logger.warn("{} ({} similar errors since the last stack trace)", state.clientError.getMessage(), sample.suppressed(), state.clientError);
+        } else {
+            state.logger.debug(state.clientError.getMessage());
+        }
+    }
+
+}
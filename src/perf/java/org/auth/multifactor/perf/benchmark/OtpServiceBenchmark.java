@@ -0,0 +1,97 @@
+package org.auth.multifactor.perf.benchmark;
+
+import org.auth.multifactor.perf.InMemoryOtpStore;
+import org.auth.multifactor.perf.InMemoryOutgoingMessageService;
+import org.auth.multifactor.perf.StandInApplication;
+import org.auth.multifactor.service.OtpService;
+import org.auth.multifactor.service.enumeration.OtpValidationStatus;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full create/validate flows through the Spring-wired {@link OtpService}, with Mongo and the mail relay
+ * replaced by in-memory stand-ins so only the service's own cost is measured.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OtpServiceBenchmark {
+
+    private static final int EMAILS = 1024;
+
+    private final InMemoryOtpStore otpStore = new InMemoryOtpStore();
+    private final InMemoryOutgoingMessageService outgoingMessageService = new InMemoryOutgoingMessageService();
+    private final String[] emails = new String[EMAILS];
+    private ConfigurableApplicationContext context;
+    private OtpService otpService;
+
+    @Setup
+    public void setUp() {
+        context = StandInApplication.run(WebApplicationType.NONE, otpStore, outgoingMessageService);
+        otpService = context.getBean(OtpService.class);
+
+        for (int i = 0; i < EMAILS; i++) {
+            emails[i] = "benchmark" + i + "@benchmark.com";
+            otpService.create(emails[i]);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int next;
+
+        int next() {
+            next = (next + 1) % EMAILS;
+            return next;
+        }
+
+    }
+
+    @State(Scope.Thread)
+    public static class UnusedCode {
+
+        private String email;
+        private String code;
+
+        @Setup(Level.Invocation)
+        public void setUp(OtpServiceBenchmark benchmark, Cursor cursor) {
+            email = benchmark.emails[cursor.next()];
+            code = benchmark.outgoingMessageService.getLastText(email);
+            benchmark.otpStore.findLatest(email).ifPresent(otp -> otp.setUsed(false));
+        }
+
+    }
+
+    @Benchmark
+    public void create(Cursor cursor) {
+        otpService.create(emails[cursor.next()]);
+    }
+
+    @Benchmark
+    public OtpValidationStatus validateValid(UnusedCode unusedCode) {
+        return otpService.validate(unusedCode.email, unusedCode.code);
+    }
+
+    @Benchmark
+    public OtpValidationStatus validateInvalid(Cursor cursor) {
+        return otpService.validate(emails[cursor.next()], "invalid");
+    }
+
+    @Benchmark
+    public OtpValidationStatus validateNotFound(Cursor cursor) {
+        return otpService.validate("unknown" + cursor.next() + "@benchmark.com", "123456");
+    }
+
+}
@@ -0,0 +1,49 @@
+package org.auth.multifactor.perf.benchmark;
+
+import org.auth.multifactor.util.PasswordUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordUtilBenchmark {
+
+    private final PasswordUtil passwordUtil = new PasswordUtil();
+
+    @State(Scope.Benchmark)
+    public static class HashState {
+
+        @Param({"1000", "10000", "50000", "210000"})
+        public int iterations;
+
+        public final String password = "123456";
+        public byte[] salt;
+
+        @Setup
+        public void setUp() {
+            salt = new PasswordUtil().generateSalt();
+        }
+
+    }
+
+    @Benchmark
+    public byte[] generateSalt() {
+        return passwordUtil.generateSalt();
+    }
+
+    @Benchmark
+    public String generateOneTimePassword() {
+        return passwordUtil.generateOneTimePassword();
+    }
+
+    @Benchmark
+    public byte[] generateHash(HashState state) {
+        return passwordUtil.generateHash(state.password, state.salt, state.iterations);
+    }
+
+}
@@ -0,0 +1,108 @@
+package org.auth.multifactor.perf.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures time to first request: from launching the JVM until the application answers an HTTP request, for the
+ * default fat jar and for the AOT-processed jar started with its class data sharing archive. The probe is a validate
+ * call with a malformed email, which is answered without touching Mongo or the mail relay, so neither needs to run.
+ * <p>
+ * Only uses the JDK, so the build runs it as a single source file without a classpath. Arguments, all optional:
+ * {@code runs=5 default-jar=target/multi-factor-authentication-1.0-SNAPSHOT-exec.jar
+ * optimized-jar=target/multi-factor-authentication-1.0-SNAPSHOT.jar cds-archive=target/application.jsa
+ * profiles=docker-compose,fast-startup timeout-seconds=120}.
+ */
+public class StartupTimeBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(Map.of(
+                "runs", "5",
+                "default-jar", "target/multi-factor-authentication-1.0-SNAPSHOT-exec.jar",
+                "optimized-jar", "target/multi-factor-authentication-1.0-SNAPSHOT.jar",
+                "cds-archive", "target/application.jsa",
+                "profiles", "docker-compose,fast-startup",
+                "timeout-seconds", "120"));
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            options.put(option[0], option[1]);
+        }
+        int runs = Integer.parseInt(options.get("runs"));
+        Duration timeout = Duration.ofSeconds(Long.parseLong(options.get("timeout-seconds")));
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+
+        List<String> defaultCommand = List.of(java, "-Dspring.profiles.active=" + options.get("profiles"),
+                "-jar", options.get("default-jar"));
+        List<String> optimizedCommand = List.of(java, "-XX:SharedArchiveFile=" + options.get("cds-archive"),
+                "-Dspring.aot.enabled=true", "-Dspring.profiles.active=" + options.get("profiles"),
+                "-jar", options.get("optimized-jar"));
+
+        System.out.printf("%-10s %6s %10s %10s %10s%n", "mode", "runs", "min ms", "median ms", "max ms");
+        report("default", measure(defaultCommand, runs, timeout));
+        report("optimized", measure(optimizedCommand, runs, timeout));
+    }
+
+    private static List<Long> measure(List<String> command, int runs, Duration timeout) throws Exception {
+        List<Long> millis = new ArrayList<>();
+        for (int run = 0; run < runs; run++) {
+            millis.add(timeToFirstRequest(command, timeout).toMillis());
+        }
+        Collections.sort(millis);
+        return millis;
+    }
+
+    private static Duration timeToFirstRequest(List<String> command, Duration timeout) throws Exception {
+        int port = freePort();
+        List<String> withPort = new ArrayList<>(command);
+        withPort.add("--server.port=" + port);
+
+        HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+        HttpRequest probe = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/otp/validate"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString("email=startup-probe&otp=0"))
+                .build();
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(withPort).redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+        try {
+            while (System.nanoTime() - start < timeout.toNanos()) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Application exited with " + process.exitValue() + ": " + String.join(" ", withPort));
+                }
+                try {
+                    httpClient.send(probe, HttpResponse.BodyHandlers.discarding());
+                    return Duration.ofNanos(System.nanoTime() - start);
+                } catch (IOException e) {
+                    Thread.sleep(10);
+                }
+            }
+            throw new IllegalStateException("No response within " + timeout + ": " + String.join(" ", withPort));
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private static void report(String mode, List<Long> millis) {
+        System.out.printf("%-10s %6d %10d %10d %10d%n", mode, millis.size(), millis.get(0),
+                millis.get(millis.size() / 2), millis.get(millis.size() - 1));
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+package org.auth.multifactor.perf.benchmark;
+
+import org.auth.multifactor.perf.InMemoryOtpStore;
+import org.auth.multifactor.perf.InMemoryOutgoingMessageService;
+import org.auth.multifactor.perf.LatencyRecorder;
+import org.auth.multifactor.perf.StandInApplication;
+import org.auth.multifactor.service.OtpService;
+import org.auth.multifactor.util.VirtualThreads;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares create() on a Tomcat-sized platform thread pool with one virtual thread per request while the mail relay
+ * stand-in is slow, keeping a fixed number of requests in flight. Latency is measured from submission, so time spent
+ * queueing for a platform thread is included. Hashing uses the keyed HMAC strategy to keep the CPU out of the picture.
+ * <p>
+ * Needs Java 21+ for the virtual mode. Arguments, all optional: {@code mode=both|platform|virtual in-flight=1000
+ * platform-threads=200 smtp-latency-ms=100 warmup-seconds=10 duration-seconds=30}. Add
+ * {@code -Dbenchmark.jvmArgs=-Djdk.tracePinnedThreads=short} to have the JVM report any pinned carrier thread.
+ */
+public class ThreadModeBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = new HashMap<>(Map.of(
+                "mode", "both", "in-flight", "1000", "platform-threads", "200",
+                "smtp-latency-ms", "100", "warmup-seconds", "10", "duration-seconds", "30"));
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            options.put(option[0], option[1]);
+        }
+        List<String> modes = "both".equals(options.get("mode")) ? List.of("platform", "virtual") : List.of(options.get("mode"));
+
+        ConfigurableApplicationContext context = StandInApplication.run(WebApplicationType.NONE,
+                new InMemoryOtpStore(),
+                new InMemoryOutgoingMessageService(Duration.ofMillis(Long.parseLong(options.get("smtp-latency-ms")))),
+                "--application.hashing.algorithm=hmac-sha256",
+                "--application.hashing.hmac.keys.v1=" + Base64.getEncoder().encodeToString(new byte[32]));
+        OtpService otpService = context.getBean(OtpService.class);
+
+        System.out.printf("%-9s %12s %10s %10s %10s %10s %8s%n", "mode", "throughput/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "errors");
+        for (String mode : modes) {
+            ExecutorService executor = "virtual".equals(mode)
+                    ? VirtualThreads.newVirtualThreadPerTaskExecutor()
+                    : Executors.newFixedThreadPool(Integer.parseInt(options.get("platform-threads")));
+            int inFlight = Integer.parseInt(options.get("in-flight"));
+
+            run(otpService, executor, inFlight, Duration.ofSeconds(Long.parseLong(options.get("warmup-seconds"))), new LatencyRecorder(), new AtomicLong());
+
+            LatencyRecorder recorder = new LatencyRecorder();
+            AtomicLong errors = new AtomicLong();
+            Duration duration = Duration.ofSeconds(Long.parseLong(options.get("duration-seconds")));
+            run(otpService, executor, inFlight, duration, recorder, errors);
+            executor.shutdown();
+
+            LatencyRecorder.Snapshot snapshot = recorder.snapshot();
+            System.out.printf("%-9s %12.1f %10.2f %10.2f %10.2f %10.2f %8d%n", mode,
+                    snapshot.count() / (double) duration.toSeconds(),
+                    snapshot.p50Millis(), snapshot.p99Millis(), snapshot.p999Millis(), snapshot.maxMillis(), errors.get());
+        }
+
+        context.close();
+    }
+
+    private static void run(OtpService otpService, ExecutorService executor, int inFlight, Duration duration,
+                            LatencyRecorder recorder, AtomicLong errors) throws InterruptedException {
+        Semaphore permits = new Semaphore(inFlight);
+        long deadline = System.nanoTime() + duration.toNanos();
+        long request = 0;
+
+        while (System.nanoTime() < deadline) {
+            permits.acquire();
+            String email = "benchmark" + (request++ % 100_000) + "@benchmark.com";
+            long submittedAt = System.nanoTime();
+            executor.execute(() -> {
+                try {
+                    otpService.create(email);
+                    recorder.record(System.nanoTime() - submittedAt);
+                } catch (RuntimeException e) {
+                    errors.incrementAndGet();
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+        permits.acquire(inFlight);
+    }
+
+}
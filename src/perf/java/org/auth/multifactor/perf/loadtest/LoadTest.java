@@ -0,0 +1,262 @@
+package org.auth.multifactor.perf.loadtest;
+
+import org.auth.multifactor.perf.InMemoryOtpStore;
+import org.auth.multifactor.perf.InMemoryOutgoingMessageService;
+import org.auth.multifactor.perf.LatencyRecorder;
+import org.auth.multifactor.perf.SmtpSink;
+import org.auth.multifactor.perf.StandInApplication;
+import org.auth.multifactor.service.enumeration.OtpValidationStatus;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Open-loop HTTP load test against the real application, booted with the in-memory repository and either the SMTP
+ * sink (so the real mail sender and its connection pool are on the path) or the in-memory mail stand-in. Requests
+ * are issued at a fixed rate whether or not earlier ones have completed, and latency is measured from the time a
+ * request was due, so a stalled server shows up in the percentiles instead of lowering the offered load.
+ * <p>
+ * Arguments, all optional: {@code rate=200 duration-seconds=60 warmup-seconds=10 users=10000
+ * mix=create:20,validate:60,invalid:10,unknown:10 mail=smtp|memory smtp-latency-ms=20 max-in-flight=2000
+ * report-file=target/load-test-report.txt}. {@code validate} submits the code last mailed to the user,
+ * {@code invalid} a wrong code and {@code unknown} an email that never got one. Arguments starting with
+ * {@code --} are passed to the application, e.g. {@code --application.hashing.pbkdf2.iterations=10000}.
+ */
+public class LoadTest {
+
+    private static final List<String> OPERATIONS = List.of("create", "validate", "invalid", "unknown");
+
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final URI baseUri;
+    private final Function<String, String> lastCode;
+    private final int users;
+    private final String[] weightedOperations;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+
+    private final Map<String, LatencyRecorder> endpointLatencies = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> endpointErrors = new ConcurrentHashMap<>();
+    private final Map<OtpValidationStatus, LatencyRecorder> statusLatencies = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> errorsByCause = new ConcurrentHashMap<>();
+
+    private LoadTest(URI baseUri, Function<String, String> lastCode, int users, String mix, int maxInFlight) {
+        this.baseUri = baseUri;
+        this.lastCode = lastCode;
+        this.users = users;
+        this.weightedOperations = parseMix(mix);
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(Map.of(
+                "rate", "200", "duration-seconds", "60", "warmup-seconds", "10", "users", "10000",
+                "mix", "create:20,validate:60,invalid:10,unknown:10", "mail", "smtp", "smtp-latency-ms", "20",
+                "max-in-flight", "2000", "report-file", "target/load-test-report.txt"));
+        List<String> applicationArgs = new ArrayList<>(List.of("--server.port=0"));
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                applicationArgs.add(arg);
+            } else {
+                String[] option = arg.split("=", 2);
+                options.put(option[0], option[1]);
+            }
+        }
+        Duration smtpLatency = Duration.ofMillis(Long.parseLong(options.get("smtp-latency-ms")));
+
+        SmtpSink smtpSink = null;
+        InMemoryOutgoingMessageService inMemoryMail = null;
+        Function<String, String> lastCode;
+        if ("smtp".equals(options.get("mail"))) {
+            smtpSink = new SmtpSink(smtpLatency);
+            applicationArgs.add("--spring.mail.host=localhost");
+            applicationArgs.add("--spring.mail.port=" + smtpSink.getPort());
+            lastCode = smtpSink::getLastText;
+        } else {
+            inMemoryMail = new InMemoryOutgoingMessageService(smtpLatency);
+            lastCode = inMemoryMail::getLastText;
+        }
+
+        ConfigurableApplicationContext context = StandInApplication.run(WebApplicationType.SERVLET,
+                new InMemoryOtpStore(), inMemoryMail, applicationArgs.toArray(String[]::new));
+        URI baseUri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/otp/");
+        int rate = Integer.parseInt(options.get("rate"));
+
+        try {
+            new LoadTest(baseUri, lastCode, Integer.parseInt(options.get("users")), options.get("mix"),
+                    Integer.parseInt(options.get("max-in-flight")))
+                    .run(rate, Duration.ofSeconds(Long.parseLong(options.get("warmup-seconds"))));
+
+            LoadTest measured = new LoadTest(baseUri, lastCode, Integer.parseInt(options.get("users")), options.get("mix"),
+                    Integer.parseInt(options.get("max-in-flight")));
+            Duration duration = Duration.ofSeconds(Long.parseLong(options.get("duration-seconds")));
+            measured.run(rate, duration);
+
+            String report = measured.report(options, duration, smtpSink);
+            System.out.print(report);
+            Path reportFile = Path.of(options.get("report-file"));
+            if (reportFile.getParent() != null) {
+                Files.createDirectories(reportFile.getParent());
+            }
+            Files.writeString(reportFile, report);
+        } finally {
+            context.close();
+            if (smtpSink != null) {
+                smtpSink.close();
+            }
+        }
+    }
+
+    private void run(int rate, Duration duration) throws InterruptedException {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+
+        for (long due = start; due < end; due += intervalNanos) {
+            long now;
+            while ((now = System.nanoTime()) < due) {
+                LockSupport.parkNanos(due - now);
+            }
+            issue(weightedOperations[ThreadLocalRandom.current().nextInt(weightedOperations.length)], due);
+        }
+        // let the last requests complete so they count
+        if (inFlight.tryAcquire(maxInFlight, 30, TimeUnit.SECONDS)) {
+            inFlight.release(maxInFlight);
+        }
+    }
+
+    private void issue(String operation, long due) {
+        String endpoint = "create".equals(operation) ? "create" : "validate";
+        if (!inFlight.tryAcquire()) {
+            error(endpoint, "client: too many requests in flight");
+            return;
+        }
+
+        int user = ThreadLocalRandom.current().nextInt(users);
+        String email = ("unknown".equals(operation) ? "unknown" : "user") + user + "@loadtest.com";
+        String body = "email=" + URLEncoder.encode(email, StandardCharsets.UTF_8);
+        if (!"create".equals(operation)) {
+            String code = "validate".equals(operation) ? lastCode.apply(email) : null;
+            body += "&otp=" + (code != null ? code.trim() : "invalid");
+        }
+
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve(endpoint))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, failure) -> {
+                    long latency = System.nanoTime() - due;
+                    inFlight.release();
+                    if (failure != null) {
+                        error(endpoint, "client: " + failure.getClass().getSimpleName());
+                        return;
+                    }
+                    record(endpoint, response, latency);
+                });
+    }
+
+    private void record(String endpoint, HttpResponse<String> response, long latency) {
+        if ("create".equals(endpoint)) {
+            if (response.statusCode() == 201) {
+                endpointLatencies.computeIfAbsent(endpoint, key -> new LatencyRecorder()).record(latency);
+            } else {
+                error(endpoint, "http " + response.statusCode());
+            }
+            return;
+        }
+
+        OtpValidationStatus status = switch (response.statusCode()) {
+            case 200 -> response.body().contains("\"VALID\"") ? OtpValidationStatus.VALID : OtpValidationStatus.NOT_FOUND;
+            case 401 -> OtpValidationStatus.INVALID;
+            case 410 -> OtpValidationStatus.EXPIRED;
+            case 422 -> OtpValidationStatus.USED;
+            default -> null;
+        };
+        if (status == null) {
+            error(endpoint, "http " + response.statusCode());
+            return;
+        }
+        endpointLatencies.computeIfAbsent(endpoint, key -> new LatencyRecorder()).record(latency);
+        statusLatencies.computeIfAbsent(status, key -> new LatencyRecorder()).record(latency);
+    }
+
+    private void error(String endpoint, String cause) {
+        endpointErrors.computeIfAbsent(endpoint, key -> new AtomicLong()).incrementAndGet();
+        errorsByCause.computeIfAbsent(endpoint + " " + cause, key -> new AtomicLong()).incrementAndGet();
+    }
+
+    private String report(Map<String, String> options, Duration duration, SmtpSink smtpSink) {
+        StringWriter report = new StringWriter();
+        PrintWriter out = new PrintWriter(report);
+        out.printf("offered rate %s/s for %ds, mix %s, mail %s (%s ms)%n%n", options.get("rate"), duration.toSeconds(),
+                options.get("mix"), options.get("mail"), options.get("smtp-latency-ms"));
+
+        String header = "%-10s %9s %12s %9s %9s %9s %9s %8s %8s%n";
+        String row = "%-10s %9d %12.1f %9.2f %9.2f %9.2f %9.2f %8d %7.2f%%%n";
+        out.printf(header, "endpoint", "requests", "throughput/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "errors", "errors");
+        for (String endpoint : List.of("create", "validate")) {
+            LatencyRecorder.Snapshot snapshot = endpointLatencies.getOrDefault(endpoint, new LatencyRecorder()).snapshot();
+            long errors = endpointErrors.getOrDefault(endpoint, new AtomicLong()).get();
+            long requests = snapshot.count() + errors;
+            out.printf(row, endpoint, requests, snapshot.count() / (double) duration.toSeconds(), snapshot.p50Millis(),
+                    snapshot.p99Millis(), snapshot.p999Millis(), snapshot.maxMillis(), errors,
+                    requests == 0 ? 0 : 100.0 * errors / requests);
+        }
+
+        out.println();
+        out.printf(header, "status", "responses", "throughput/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "", "");
+        for (OtpValidationStatus status : OtpValidationStatus.values()) {
+            LatencyRecorder.Snapshot snapshot = statusLatencies.getOrDefault(status, new LatencyRecorder()).snapshot();
+            out.printf("%-10s %9d %12.1f %9.2f %9.2f %9.2f %9.2f%n", status, snapshot.count(),
+                    snapshot.count() / (double) duration.toSeconds(), snapshot.p50Millis(), snapshot.p99Millis(),
+                    snapshot.p999Millis(), snapshot.maxMillis());
+        }
+
+        if (!errorsByCause.isEmpty()) {
+            out.println();
+            out.println("errors");
+            new TreeMap<>(errorsByCause).forEach((cause, count) -> out.printf("  %-50s %d%n", cause, count.get()));
+        }
+        if (smtpSink != null) {
+            out.println();
+            out.printf("smtp sink: %d messages over %d connections%n", smtpSink.getMessageCount(), smtpSink.getConnectionCount());
+        }
+        out.flush();
+        return report.toString();
+    }
+
+    private static String[] parseMix(String mix) {
+        List<String> weighted = new ArrayList<>();
+        for (String entry : mix.split(",")) {
+            String[] weight = entry.split(":", 2);
+            if (!OPERATIONS.contains(weight[0])) {
+                throw new IllegalArgumentException("Unknown operation in mix: " + weight[0] + ", expected one of " + OPERATIONS);
+            }
+            weighted.addAll(Collections.nCopies(Integer.parseInt(weight[1]), weight[0]));
+        }
+        return weighted.toArray(String[]::new);
+    }
+
+}
@@ -0,0 +1,36 @@
+package org.auth.multifactor.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.auth.multifactor.service.exception.ServiceUnavailableException;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.reactive.result.method.annotation.ResponseEntityExceptionHandler;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+@Slf4j
+@ControllerAdvice
+@Profile("reactive")
+public class ReactiveControllerExceptionHandler extends ResponseEntityExceptionHandler {
+
+    @ExceptionHandler(value = {ServiceUnavailableException.class})
+    protected Mono<ResponseEntity<Object>> handleServiceUnavailableException(ServiceUnavailableException ex, ServerWebExchange exchange) {
+        log.warn(ex.getMessage());
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()));
+        return handleExceptionInternal(ex, ex.getMessage(), headers, HttpStatus.SERVICE_UNAVAILABLE, exchange);
+    }
+
+    @ExceptionHandler(value = {Exception.class})
+    protected Mono<ResponseEntity<Object>> handleGenericException(Exception ex, ServerWebExchange exchange) {
+        log.error(ex.getMessage(), ex);
+
+        return handleExceptionInternal(ex, ex.getMessage(), new HttpHeaders(), HttpStatus.INTERNAL_SERVER_ERROR, exchange);
+    }
+
+}
@@ -0,0 +1,47 @@
+package org.auth.multifactor.controller;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import lombok.RequiredArgsConstructor;
+import org.auth.multifactor.service.ReactiveOtpService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link OtpController}. WebFlux binds form data through
+ * {@link ModelAttribute} rather than request parameters, hence the request records.
+ */
+@RestController
+@RequestMapping("/otp")
+@RequiredArgsConstructor
+@Profile("reactive")
+public class ReactiveOtpController {
+
+    private final ReactiveOtpService reactiveOtpServiceImpl;
+
+    public record CreateRequest(@NotBlank @Email String email) {
+    }
+
+    public record ValidateRequest(@NotBlank @Email String email, @NotBlank String otp) {
+    }
+
+    @PostMapping(path = "/create", consumes = {MediaType.APPLICATION_FORM_URLENCODED_VALUE})
+    public Mono<ResponseEntity<String>> create(@Valid @ModelAttribute CreateRequest request) {
+        return reactiveOtpServiceImpl.create(request.email())
+                .then(Mono.fromSupplier(OtpResponses::created));
+    }
+
+    @PostMapping(path = "/validate", consumes = {MediaType.APPLICATION_FORM_URLENCODED_VALUE})
+    public Mono<ResponseEntity<String>> validate(@Valid @ModelAttribute ValidateRequest request) {
+        return reactiveOtpServiceImpl.validate(request.email(), request.otp())
+                .map(OtpResponses::validated);
+    }
+
+}
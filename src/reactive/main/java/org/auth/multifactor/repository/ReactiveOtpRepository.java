@@ -0,0 +1,13 @@
+package org.auth.multifactor.repository;
+
+import org.auth.multifactor.model.Otp;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface ReactiveOtpRepository extends ReactiveMongoRepository<Otp, String>, ReactiveOtpRepositoryCustom {
+
+    Mono<Otp> findTopByEmailOrderByExpirationDateTimeDesc(String email);
+
+}
@@ -0,0 +1,14 @@
+package org.auth.multifactor.repository;
+
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+public interface ReactiveOtpRepositoryCustom {
+
+    /**
+     * Reactive counterpart of {@link OtpRepositoryCustom#markUsed(String, LocalDateTime)}.
+     */
+    Mono<Boolean> markUsed(String id, LocalDateTime now);
+
+}
@@ -0,0 +1,28 @@
+package org.auth.multifactor.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.auth.multifactor.model.Otp;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+@RequiredArgsConstructor
+public class ReactiveOtpRepositoryCustomImpl implements ReactiveOtpRepositoryCustom {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Override
+    public Mono<Boolean> markUsed(String id, LocalDateTime now) {
+        return reactiveMongoTemplate.updateFirst(
+                        query(where("id").is(id).and("isUsed").is(false).and("expirationDateTime").gte(now)),
+                        new Update().set("isUsed", true),
+                        Otp.class)
+                .map(result -> result.getModifiedCount() == 1);
+    }
+
+}
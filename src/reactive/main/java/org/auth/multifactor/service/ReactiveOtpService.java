@@ -0,0 +1,12 @@
+package org.auth.multifactor.service;
+
+import org.auth.multifactor.service.enumeration.OtpValidationStatus;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveOtpService {
+
+    Mono<Void> create(String email);
+
+    Mono<OtpValidationStatus> validate(String email, String otp);
+
+}
@@ -0,0 +1,103 @@
+package org.auth.multifactor.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.auth.multifactor.model.Otp;
+import org.auth.multifactor.repository.ReactiveOtpRepository;
+import org.auth.multifactor.service.PrecomputedOtpPool.PrecomputedOtp;
+import org.auth.multifactor.service.enumeration.OtpValidationStatus;
+import org.auth.multifactor.service.hashing.OtpHashingService;
+import org.auth.multifactor.util.PasswordUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+
+import static java.time.ZoneOffset.UTC;
+import static org.auth.multifactor.service.enumeration.OtpValidationStatus.*;
+
+/**
+ * Non-blocking variant of {@link OtpServiceImpl}. Hashing runs on the bounded hashing executor,
+ * the blocking mail client on the bounded elastic scheduler, so event loop threads never wait.
+ */
+@Slf4j
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveOtpServiceImpl implements ReactiveOtpService {
+
+    @Value("${application.otp-ttl-minutes}")
+    private Long otpTtlMinutes;
+
+    private final PasswordUtil passwordUtil;
+    private final OtpHashingService otpHashingService;
+    private final PrecomputedOtpPool precomputedOtpPool;
+    private final ReactiveOtpRepository otpRepository;
+    private final OutgoingMessageService outgoingEmailMessageService;
+
+    @Override
+    public Mono<Void> create(String email) {
+        return Mono.justOrEmpty(precomputedOtpPool.take())
+                .switchIfEmpty(Mono.defer(this::generateCredentials))
+                .flatMap(credentials -> otpRepository.save(toOtp(email, credentials))
+                        .then(Mono.fromRunnable(() -> outgoingEmailMessageService.sendMessage(email, "Auth Code", credentials.password()))
+                                .subscribeOn(Schedulers.boundedElastic())))
+                .doOnSuccess(ignored -> log.info("Saved & sent OTP password for email: {}", email))
+                .then();
+    }
+
+    @Override
+    public Mono<OtpValidationStatus> validate(String email, String otp) {
+        return otpRepository.findTopByEmailOrderByExpirationDateTimeDesc(email)
+                .flatMap(result -> Mono.fromFuture(() -> otpHashingService.matchesAsync(otp, result))
+                        .flatMap(matches -> matches ? consume(result) : Mono.just(INVALID)))
+                .defaultIfEmpty(NOT_FOUND)
+                .doOnNext(status -> logValidation(email, status));
+    }
+
+    private static void logValidation(String email, OtpValidationStatus status) {
+        switch (status) {
+            case VALID -> log.info("Validated OTP password for email: {}", email);
+            case INVALID -> log.info("Invalid OTP password for email: {}", email);
+            case EXPIRED -> log.info("Expired OTP password for email: {}", email);
+            case USED -> log.info("Used OTP password for email: {}", email);
+            case NOT_FOUND -> log.info("Not Found OTP password for email: {}", email);
+        }
+    }
+
+    private Mono<OtpValidationStatus> consume(Otp result) {
+        LocalDateTime now = LocalDateTime.now(UTC);
+        if (result.isUsed()) {
+            return Mono.just(USED);
+        } else if (result.getExpirationDateTime().isBefore(now)) {
+            return Mono.just(EXPIRED);
+        }
+
+        return otpRepository.markUsed(result.getId(), now)
+                .map(consumed -> consumed ? VALID
+                        // a concurrent validation consumed the code first, or it expired in between
+                        : result.getExpirationDateTime().isBefore(LocalDateTime.now(UTC)) ? EXPIRED : USED);
+    }
+
+    private Mono<PrecomputedOtp> generateCredentials() {
+        byte[] salt = passwordUtil.generateSalt();
+        String password = passwordUtil.generateOneTimePassword();
+        return Mono.fromFuture(() -> otpHashingService.hashAsync(password, salt))
+                .map(hash -> new PrecomputedOtp(password, salt, hash));
+    }
+
+    private Otp toOtp(String email, PrecomputedOtp credentials) {
+        Otp otp = new Otp();
+        otp.setEmail(email);
+        otp.setOtp(credentials.hash().value());
+        otp.setSalt(credentials.salt());
+        otp.setHashAlgorithm(credentials.hash().algorithm());
+        otp.setHashParameters(credentials.hash().parameters());
+        otp.setExpirationDateTime(LocalDateTime.now(UTC).plusMinutes(otpTtlMinutes));
+        return otp;
+    }
+
+}
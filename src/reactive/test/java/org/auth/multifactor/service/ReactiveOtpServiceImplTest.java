@@ -0,0 +1,130 @@
+package org.auth.multifactor.service;
+
+import org.auth.multifactor.model.Otp;
+import org.auth.multifactor.repository.OtpRepository;
+import org.auth.multifactor.repository.ReactiveOtpRepository;
+import org.auth.multifactor.service.enumeration.OtpValidationStatus;
+import org.auth.multifactor.util.PasswordUtil;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+import static java.time.ZoneOffset.UTC;
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.auth.multifactor.service.enumeration.OtpValidationStatus.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+@ActiveProfiles({"test", "reactive"})
+class ReactiveOtpServiceImplTest {
+
+    @MockBean
+    private ReactiveOtpRepository reactiveOtpRepository;
+    @MockBean
+    private OtpRepository otpRepository;
+    @MockBean
+    private OutgoingMessageService emailSender;
+    @SpyBean
+    private PasswordUtil passwordUtil;
+
+    @Captor
+    private ArgumentCaptor<String> stringCaptor;
+    @Captor
+    private ArgumentCaptor<Otp> otpCaptor;
+
+    @Autowired
+    private ReactiveOtpServiceImpl reactiveOtpServiceImpl;
+
+    private PasswordUtil testPasswordUtil = new PasswordUtil();
+    private String mockEmail = "junit@junit.com";
+    private String mockPass = "123456";
+
+    @Test
+    void create() {
+        when(passwordUtil.generateOneTimePassword()).thenReturn(mockPass);
+        when(reactiveOtpRepository.save(any(Otp.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        reactiveOtpServiceImpl.create(mockEmail).block();
+
+        verify(emailSender).sendMessage(stringCaptor.capture(), stringCaptor.capture(), stringCaptor.capture());
+        assertThat(stringCaptor.getAllValues()).containsExactlyElementsOf(asList(mockEmail, "Auth Code", mockPass));
+
+        verify(reactiveOtpRepository).save(otpCaptor.capture());
+
+        Otp actualOtp = otpCaptor.getValue();
+        assertThat(actualOtp.getEmail()).isEqualTo(mockEmail);
+        assertThat(actualOtp.getOtp()).isExactlyInstanceOf(byte[].class);
+        assertThat(actualOtp.getExpirationDateTime()).isAfter(LocalDateTime.now(UTC));
+        assertThat(actualOtp.isUsed()).isFalse();
+    }
+
+    @Test
+    void validate() {
+        Otp mockOtp = buildMockOtp();
+
+        when(reactiveOtpRepository.findTopByEmailOrderByExpirationDateTimeDesc(anyString())).thenReturn(Mono.just(mockOtp));
+        when(reactiveOtpRepository.markUsed(eq(mockOtp.getId()), any(LocalDateTime.class))).thenReturn(Mono.just(true));
+
+        OtpValidationStatus actualStatus = reactiveOtpServiceImpl.validate(mockEmail, mockPass).block();
+
+        assertThat(actualStatus).isEqualTo(VALID);
+    }
+
+    @Test
+    void validate_OtpNotFoundInDatabase_NotFoundReturned() {
+        when(reactiveOtpRepository.findTopByEmailOrderByExpirationDateTimeDesc(anyString())).thenReturn(Mono.empty());
+
+        OtpValidationStatus actualStatus = reactiveOtpServiceImpl.validate(mockEmail, mockPass).block();
+
+        assertThat(actualStatus).isEqualTo(NOT_FOUND);
+    }
+
+    @Test
+    void validate_DatabaseOtpIsInvalid_InvalidReturned() {
+        Otp mockOtp = buildMockOtp();
+        mockOtp.setOtp(testPasswordUtil.generateHash("invalid", mockOtp.getSalt()));
+
+        when(reactiveOtpRepository.findTopByEmailOrderByExpirationDateTimeDesc(anyString())).thenReturn(Mono.just(mockOtp));
+
+        OtpValidationStatus actualStatus = reactiveOtpServiceImpl.validate(mockEmail, mockPass).block();
+
+        assertThat(actualStatus).isEqualTo(INVALID);
+    }
+
+    @Test
+    void validate_OtpConsumedConcurrently_UsedReturned() {
+        Otp mockOtp = buildMockOtp();
+
+        when(reactiveOtpRepository.findTopByEmailOrderByExpirationDateTimeDesc(anyString())).thenReturn(Mono.just(mockOtp));
+        when(reactiveOtpRepository.markUsed(eq(mockOtp.getId()), any(LocalDateTime.class))).thenReturn(Mono.just(false));
+
+        OtpValidationStatus actualStatus = reactiveOtpServiceImpl.validate(mockEmail, mockPass).block();
+
+        assertThat(actualStatus).isEqualTo(USED);
+    }
+
+    private Otp buildMockOtp() {
+        Otp mockOtp = new Otp();
+        mockOtp.setId("otp-id");
+        mockOtp.setEmail(mockEmail);
+        mockOtp.setSalt(testPasswordUtil.generateSalt());
+        mockOtp.setOtp(testPasswordUtil.generateHash(mockPass, mockOtp.getSalt()));
+        mockOtp.setExpirationDateTime(LocalDateTime.now(UTC).plusMinutes(3));
+        mockOtp.setUsed(false);
+        return mockOtp;
+    }
+
+}
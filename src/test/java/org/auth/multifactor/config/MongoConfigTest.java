@@ -0,0 +1,53 @@
+package org.auth.multifactor.config;
+
+import org.auth.multifactor.model.Otp;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.TimeZone;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MongoConfigTest {
+
+    private final TimeZone defaultTimeZone = TimeZone.getDefault();
+    private MappingMongoConverter converter;
+
+    @BeforeEach
+    void setUp() {
+        // a zone ahead of UTC by more than a code's lifetime plus the TTL grace period
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Tokyo"));
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(new MongoConfig().mongoCustomConversions());
+        mappingContext.setSimpleTypeHolder(new MongoConfig().mongoCustomConversions().getSimpleTypeHolder());
+        converter.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TimeZone.setDefault(defaultTimeZone);
+    }
+
+    @Test
+    void localDateTime_StoredAsUtcInstantRegardlessOfJvmZone() {
+        Otp otp = new Otp();
+        otp.setExpirationDateTime(LocalDateTime.of(2024, 1, 1, 12, 0));
+
+        Document document = new Document();
+        converter.write(otp, document);
+
+        assertThat(document.get("expirationDateTime")).isEqualTo(Date.from(Instant.parse("2024-01-01T12:00:00Z")));
+        assertThat(converter.read(Otp.class, document).getExpirationDateTime()).isEqualTo(LocalDateTime.of(2024, 1, 1, 12, 0));
+        assertThat(converter.convertToMongoType(LocalDateTime.of(2024, 1, 1, 12, 0))).isEqualTo(Date.from(Instant.parse("2024-01-01T12:00:00Z")));
+    }
+
+}
\ No newline at end of file
@@ -1,6 +1,9 @@
 package org.auth.multifactor.controller;
 
+import org.auth.multifactor.service.OtpCreationResult;
+import org.auth.multifactor.repository.OtpRepository;
 import org.auth.multifactor.service.OtpService;
+import org.auth.multifactor.service.exception.ServiceUnavailableException;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
@@ -15,13 +18,20 @@ import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultMatcher;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.util.List;
+
 import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.auth.multifactor.service.enumeration.OtpCreationStatus.CREATED;
+import static org.auth.multifactor.service.enumeration.OtpCreationStatus.DELIVERY_FAILED;
 import static org.auth.multifactor.service.enumeration.OtpValidationStatus.*;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.MediaType.APPLICATION_FORM_URLENCODED_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -33,6 +43,8 @@ class OtpControllerTest {
     private JavaMailSender emailSender;
     @MockBean
     private OtpService otpServiceImpl;
+    @MockBean
+    private OtpRepository otpRepository;
 
     @Captor
     private ArgumentCaptor<String> stringCaptor;
@@ -60,13 +72,53 @@ class OtpControllerTest {
         assertThat(result.getResponse().getContentAsString()).isNotBlank();
     }
 
+    @Test
+    public void create_ServiceUnavailable_ReturnServiceUnavailableWithRetryAfter() throws Exception {
+        doThrow(new ServiceUnavailableException("busy", 3)).when(otpServiceImpl).create(anyString());
+
+        MvcResult result = validatePostRequest("create", mockEmail, mockPass, status().isServiceUnavailable());
+
+        assertThat(result.getResponse().getHeader("Retry-After")).isEqualTo("3");
+    }
+
+    @Test
+    public void createBatch_PartialFailure_ReturnMultiStatusPerEmail() throws Exception {
+        when(otpServiceImpl.create(anyList())).thenAnswer(invocation -> List.of(
+                new OtpCreationResult(mockEmail, CREATED),
+                new OtpCreationResult("other@junit.com", DELIVERY_FAILED)));
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                        .post("/otp/create/batch")
+                        .content("[\"" + mockEmail + "\", \"invalidEmail\", \"other@junit.com\"]")
+                        .contentType(APPLICATION_JSON))
+                .andExpect(status().isMultiStatus())
+                .andReturn();
+
+        assertThat(result.getResponse().getContentAsString()).isEqualTo("[" +
+                "{\"email\":\"junit@junit.com\",\"status\":\"CREATED\"}," +
+                "{\"email\":\"invalidEmail\",\"status\":\"INVALID_EMAIL\"}," +
+                "{\"email\":\"other@junit.com\",\"status\":\"DELIVERY_FAILED\"}]");
+
+        verify(otpServiceImpl).create(List.of(mockEmail, "other@junit.com"));
+    }
+
+    @Test
+    public void createBatch_EmptyList_ReturnBadRequest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/otp/create/batch")
+                        .content("[]")
+                        .contentType(APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void validate() throws Exception {
         when(otpServiceImpl.validate(anyString(), anyString())).thenReturn(VALID);
 
         MvcResult result = validatePostRequest("validate", mockEmail, mockPass, status().isOk());
 
-        assertThat(result.getResponse().getContentAsString()).isNotBlank();
+        assertThat(result.getResponse().getContentAsString()).isEqualTo("{\"status\":\"VALID\",\"message\":\"Code confirmed\"}");
+        assertThat(result.getResponse().getContentType()).isEqualTo("application/json");
 
         verify(otpServiceImpl).validate(stringCaptor.capture(), stringCaptor.capture());
         assertThat(stringCaptor.getAllValues()).containsExactlyElementsOf(asList(mockEmail, mockPass));
@@ -0,0 +1,148 @@
+package org.auth.multifactor.controller;
+
+import org.auth.multifactor.repository.OtpRepository;
+import org.auth.multifactor.service.OtpCreationResult;
+import org.auth.multifactor.service.OtpService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.auth.multifactor.service.enumeration.OtpCreationStatus.CREATED;
+import static org.auth.multifactor.service.enumeration.OtpValidationStatus.VALID;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.MediaType.APPLICATION_FORM_URLENCODED_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "application.rate-limit.enabled=true",
+        "application.rate-limit.email.capacity=2",
+        "application.rate-limit.email.refill-per-minute=1",
+        "application.rate-limit.client.capacity=3",
+        "application.rate-limit.client.refill-per-minute=1"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RateLimitInterceptorTest {
+
+    @MockBean
+    private JavaMailSender emailSender;
+    @MockBean
+    private OtpService otpServiceImpl;
+    @MockBean
+    private OtpRepository otpRepository;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private String mockPass = "123456";
+
+    @Test
+    public void create_EmailLimitExceeded_ReturnTooManyRequestsWithRetryAfter() throws Exception {
+        String email = "email-limit@junit.com";
+        postRequest("create", email, "10.0.0.1", status().isCreated());
+        postRequest("create", email.toUpperCase(), "10.0.0.2", status().isCreated());
+
+        MvcResult result = postRequest("create", email, "10.0.0.3", status().isTooManyRequests());
+
+        assertThat(Long.parseLong(result.getResponse().getHeader("Retry-After"))).isBetween(1L, 60L);
+        verify(otpServiceImpl, times(2)).create(anyString());
+    }
+
+    @Test
+    public void validate_ClientLimitExceeded_ReturnTooManyRequestsBeforeService() throws Exception {
+        when(otpServiceImpl.validate(anyString(), anyString())).thenReturn(VALID);
+        String client = "10.0.1.1";
+        postRequest("validate", "client-limit-1@junit.com", client, status().isOk());
+        postRequest("validate", "client-limit-2@junit.com", client, status().isOk());
+        postRequest("validate", "client-limit-3@junit.com", client, status().isOk());
+
+        MvcResult result = postRequest("validate", "client-limit-4@junit.com", client, status().isTooManyRequests());
+
+        assertThat(result.getResponse().getHeader("Retry-After")).isNotBlank();
+        verify(otpServiceImpl, never()).validate("client-limit-4@junit.com", mockPass);
+    }
+
+    @Test
+    public void create_ValidateLimitExhausted_CreateStillAllowed() throws Exception {
+        when(otpServiceImpl.validate(anyString(), anyString())).thenReturn(VALID);
+        String email = "operations@junit.com";
+        postRequest("validate", email, "10.0.2.1", status().isOk());
+        postRequest("validate", email, "10.0.2.2", status().isOk());
+        postRequest("validate", email, "10.0.2.3", status().isTooManyRequests());
+
+        postRequest("create", email, "10.0.2.4", status().isCreated());
+    }
+
+    @Test
+    public void unmappedPath_RequestsBeyondClientLimit_NotRateLimited() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                            .post("/otp/unmapped")
+                            .with(request -> {
+                                request.setRemoteAddr("10.0.4.1");
+                                return request;
+                            }))
+                    .andReturn();
+
+            assertThat(result.getResponse().getStatus()).isNotEqualTo(429);
+        }
+    }
+
+    @Test
+    public void createBatch_EmailLimitExceeded_ReportRateLimitedAndCreateOthers() throws Exception {
+        when(otpServiceImpl.create(anyList())).thenAnswer(invocation -> invocation.<List<String>>getArgument(0).stream()
+                .map(email -> new OtpCreationResult(email, CREATED))
+                .toList());
+        String email = "batch-limit@junit.com";
+        postRequest("create", email, "10.0.3.1", status().isCreated());
+        postRequest("create", email, "10.0.3.2", status().isCreated());
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                        .post("/otp/create/batch")
+                        .content("[\"" + email.toUpperCase() + "\", \"batch-fresh@junit.com\"]")
+                        .contentType(APPLICATION_JSON)
+                        .with(request -> {
+                            request.setRemoteAddr("10.0.3.3");
+                            return request;
+                        }))
+                .andExpect(status().isMultiStatus())
+                .andReturn();
+
+        assertThat(result.getResponse().getContentAsString()).isEqualTo("[" +
+                "{\"email\":\"BATCH-LIMIT@JUNIT.COM\",\"status\":\"RATE_LIMITED\"}," +
+                "{\"email\":\"batch-fresh@junit.com\",\"status\":\"CREATED\"}]");
+        verify(otpServiceImpl).create(List.of("batch-fresh@junit.com"));
+    }
+
+    private MvcResult postRequest(String endpoint, String email, String client, ResultMatcher httpStatusMatcher) throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders
+                        .post("/otp/" + endpoint)
+                        .content(("email=" + email + "&otp=" + mockPass).getBytes())
+                        .contentType(APPLICATION_FORM_URLENCODED_VALUE)
+                        .accept(APPLICATION_FORM_URLENCODED_VALUE)
+                        .with(request -> {
+                            request.setRemoteAddr(client);
+                            return request;
+                        }))
+                .andExpect(httpStatusMatcher)
+                .andReturn();
+    }
+
+}
@@ -0,0 +1,96 @@
+package org.auth.multifactor.controller;
+
+import org.auth.multifactor.model.TotpSecret;
+import org.auth.multifactor.repository.OtpRepository;
+import org.auth.multifactor.repository.TotpSecretRepository;
+import org.auth.multifactor.service.OtpService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.auth.multifactor.service.enumeration.OtpValidationStatus.INVALID;
+import static org.auth.multifactor.service.enumeration.OtpValidationStatus.VALID;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.MediaType.APPLICATION_FORM_URLENCODED_VALUE;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "application.totp.enabled=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class TotpControllerTest {
+
+    @MockBean
+    private JavaMailSender emailSender;
+    @MockBean
+    private OtpService otpServiceImpl;
+    @MockBean
+    private OtpRepository otpRepository;
+    @MockBean
+    private TotpSecretRepository totpSecretRepository;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private String mockEmail = "junit@junit.com";
+
+    @Test
+    public void enroll_WithoutEmailedCode_ReturnBadRequest() throws Exception {
+        postRequest("enroll", "email=" + mockEmail, status().isBadRequest());
+
+        verify(otpServiceImpl, never()).validate(anyString(), anyString());
+        verify(totpSecretRepository, never()).insert(any(TotpSecret.class));
+    }
+
+    @Test
+    public void enroll_EmailedCodeNotValid_ReturnForbidden() throws Exception {
+        when(otpServiceImpl.validate(mockEmail, "000000")).thenReturn(INVALID);
+
+        MvcResult result = postRequest("enroll", "email=" + mockEmail + "&otp=000000", status().isForbidden());
+
+        assertThat(result.getResponse().getContentAsString())
+                .isEqualTo("{\"status\":\"INVALID\",\"message\":\"A valid emailed code is required\"}");
+        verify(totpSecretRepository, never()).insert(any(TotpSecret.class));
+    }
+
+    @Test
+    public void enroll_EmailedCodeValid_ReturnCreated() throws Exception {
+        when(otpServiceImpl.validate(mockEmail, "123456")).thenReturn(VALID);
+
+        MvcResult result = postRequest("enroll", "email=" + mockEmail + "&otp=123456", status().isCreated());
+
+        assertThat(result.getResponse().getContentAsString()).contains("otpauth://totp/");
+        verify(totpSecretRepository).insert(any(TotpSecret.class));
+    }
+
+    @Test
+    public void reset_EmailedCodeNotValid_ReturnForbidden() throws Exception {
+        when(otpServiceImpl.validate(mockEmail, "000000")).thenReturn(INVALID);
+
+        postRequest("reset", "email=" + mockEmail + "&otp=000000", status().isForbidden());
+
+        verify(totpSecretRepository, never()).save(any(TotpSecret.class));
+    }
+
+    private MvcResult postRequest(String endpoint, String content, ResultMatcher httpStatusMatcher) throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders
+                        .post("/otp/totp/" + endpoint)
+                        .content(content.getBytes())
+                        .contentType(APPLICATION_FORM_URLENCODED_VALUE))
+                .andExpect(httpStatusMatcher)
+                .andReturn();
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,53 @@
+package org.auth.multifactor.repository;
+
+import com.mongodb.client.result.UpdateResult;
+import org.auth.multifactor.model.Otp;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+
+import static java.time.ZoneOffset.UTC;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OtpRepositoryCustomImplTest {
+
+    private final LocalDateTime now = LocalDateTime.now(UTC);
+
+    @Test
+    void markUsed_UpdatesOnlyUnusedUnexpiredCode() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Otp.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        boolean marked = new OtpRepositoryCustomImpl(mongoTemplate).markUsed("otp-id", now);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(Otp.class));
+        assertThat(marked).isTrue();
+        assertThat(query.getValue().getQueryObject()).isEqualTo(new Document("id", "otp-id")
+                .append("isUsed", false)
+                .append("expirationDateTime", new Document("$gte", now)));
+        assertThat(update.getValue().getUpdateObject()).isEqualTo(new Document("$set", new Document("isUsed", true)));
+    }
+
+    @Test
+    void markUsed_NothingModified_ReturnsFalse() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Otp.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        assertThat(new OtpRepositoryCustomImpl(mongoTemplate).markUsed("otp-id", now)).isFalse();
+    }
+
+}
\ No newline at end of file
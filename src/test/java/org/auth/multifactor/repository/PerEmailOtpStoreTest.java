@@ -0,0 +1,69 @@
+package org.auth.multifactor.repository;
+
+import org.auth.multifactor.config.MongoConfig;
+import org.auth.multifactor.model.Otp;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PerEmailOtpStoreTest {
+
+    @Test
+    void upsertPipeline_ReplacesActiveCodeAndCapsHistory() {
+        Document set = upsertStage(5);
+
+        assertThat(set.get("h", Document.class).get("$literal")).isInstanceOf(byte[].class);
+        assertThat(set.get("x", Document.class).get("$literal")).isInstanceOf(Date.class);
+        assertThat(set.get("u")).isEqualTo(false);
+        assertThat(set.get("p", Document.class).get("$literal", Document.class)).containsEntry("keyId", "v1");
+        List<?> slice = set.get("hist", Document.class).getList("$slice", Object.class);
+        assertThat(slice.get(1)).isEqualTo(-5);
+    }
+
+    @Test
+    void upsertPipeline_NoHistoryDepth_HistoryNotWritten() {
+        assertThat(upsertStage(0)).doesNotContainKey("hist");
+    }
+
+    private static Document upsertStage(int historyDepth) {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.getConverter()).thenReturn(converter());
+        Otp otp = new Otp();
+        otp.setEmail("test@example.com");
+        otp.setOtp(new byte[]{1, 2});
+        otp.setSalt(new byte[]{3, 4});
+        otp.setHashAlgorithm("HMAC_SHA256");
+        otp.setHashParameters(Map.of("keyId", "v1"));
+        otp.setExpirationDateTime(LocalDateTime.now().plusMinutes(5));
+
+        List<Document> pipeline = new PerEmailOtpStore(mongoTemplate, historyDepth).upsertPipeline(otp, LocalDateTime.now());
+
+        assertThat(pipeline).hasSize(1);
+        return pipeline.get(0).get("$set", Document.class);
+    }
+
+    private static MappingMongoConverter converter() {
+        // configured as Spring Boot configures the application's converter
+        MongoCustomConversions conversions = new MongoConfig().mongoCustomConversions();
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        return converter;
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,98 @@
+package org.auth.multifactor.service;
+
+import org.auth.multifactor.repository.OtpRepository;
+import org.auth.multifactor.util.PasswordUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Clock;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.auth.multifactor.service.enumeration.OtpValidationStatus.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = "application.challenge.enabled=true")
+@ActiveProfiles("test")
+class ChallengeOtpServiceImplTest {
+
+    @MockBean
+    private OutgoingMessageService emailSender;
+    @MockBean
+    private Clock clock;
+    @MockBean
+    private OtpRepository otpRepository;
+    @SpyBean
+    private PasswordUtil passwordUtil;
+
+    @Autowired
+    private ChallengeOtpServiceImpl challengeOtpServiceImpl;
+
+    private String mockPass = "123456";
+
+    @BeforeEach
+    void setUp() {
+        when(clock.instant()).thenReturn(Instant.ofEpochSecond(1_700_000_000L));
+        when(passwordUtil.generateOneTimePassword()).thenReturn(mockPass);
+    }
+
+    @Test
+    void create_CodeSentNotStored() {
+        String challenge = challengeOtpServiceImpl.create("create@junit.com");
+
+        verify(emailSender).sendMessage(eq("create@junit.com"), anyString(), eq(mockPass));
+        assertThat(challenge).matches("[A-Za-z0-9_-]+\\.[A-Za-z0-9_-]+").doesNotContain(mockPass);
+    }
+
+    @Test
+    void validate_SingleUse() {
+        String challenge = challengeOtpServiceImpl.create("valid@junit.com");
+
+        assertThat(challengeOtpServiceImpl.validate("valid@junit.com", mockPass, challenge)).isEqualTo(VALID);
+        assertThat(challengeOtpServiceImpl.validate("valid@junit.com", mockPass, challenge)).isEqualTo(USED);
+    }
+
+    @Test
+    void validate_WrongCode_Invalid() {
+        String challenge = challengeOtpServiceImpl.create("wrong@junit.com");
+
+        assertThat(challengeOtpServiceImpl.validate("wrong@junit.com", "654321", challenge)).isEqualTo(INVALID);
+        assertThat(challengeOtpServiceImpl.validate("wrong@junit.com", mockPass, challenge)).isEqualTo(VALID);
+    }
+
+    @Test
+    void validate_ChallengeOfOtherEmail_Invalid() {
+        String challenge = challengeOtpServiceImpl.create("owner@junit.com");
+
+        assertThat(challengeOtpServiceImpl.validate("other@junit.com", mockPass, challenge)).isEqualTo(INVALID);
+    }
+
+    @Test
+    void validate_TamperedOrMalformed_Invalid() {
+        String challenge = challengeOtpServiceImpl.create("tampered@junit.com");
+        int signatureStart = challenge.indexOf('.') + 1;
+        char first = challenge.charAt(signatureStart);
+        String tampered = challenge.substring(0, signatureStart) + (first == 'A' ? 'B' : 'A') + challenge.substring(signatureStart + 1);
+
+        assertThat(challengeOtpServiceImpl.validate("tampered@junit.com", mockPass, tampered)).isEqualTo(INVALID);
+        assertThat(challengeOtpServiceImpl.validate("tampered@junit.com", mockPass, "not-a-challenge")).isEqualTo(INVALID);
+        assertThat(challengeOtpServiceImpl.validate("tampered@junit.com", mockPass, "AQ.AQ")).isEqualTo(INVALID);
+    }
+
+    @Test
+    void validate_Expired() {
+        String challenge = challengeOtpServiceImpl.create("expired@junit.com");
+        when(clock.instant()).thenReturn(Instant.ofEpochSecond(1_700_000_000L + 6 * 60));
+
+        assertThat(challengeOtpServiceImpl.validate("expired@junit.com", mockPass, challenge)).isEqualTo(EXPIRED);
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,84 @@
+package org.auth.multifactor.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OtpCreateCoalescerTest {
+
+    @Test
+    void run_ConcurrentCallsForSameEmail_CreateRunsOnce() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        OtpCreateCoalescer coalescer = new OtpCreateCoalescer(0, 100, meterRegistry);
+        AtomicInteger creates = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Boolean> leader = CompletableFuture.supplyAsync(() -> coalescer.run("test@junit.com", () -> {
+            creates.incrementAndGet();
+            started.countDown();
+            await(release);
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        List<CompletableFuture<Boolean>> followers = IntStream.range(0, 4)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> coalescer.run("test@junit.com", creates::incrementAndGet)))
+                .toList();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("otp.create.coalesced").tag("reason", "in-flight").counter().count() < 4 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isTrue();
+        for (CompletableFuture<Boolean> follower : followers) {
+            follower.get(5, TimeUnit.SECONDS);
+        }
+        assertThat(creates).hasValue(1);
+        assertThat(coalescer.run("test@junit.com", creates::incrementAndGet)).isTrue();
+    }
+
+    @Test
+    void run_WithinCooldown_CodeReusedUntilConsumed() {
+        OtpCreateCoalescer coalescer = new OtpCreateCoalescer(60, 100, new SimpleMeterRegistry());
+        AtomicInteger creates = new AtomicInteger();
+
+        assertThat(coalescer.run("test@junit.com", creates::incrementAndGet)).isTrue();
+        assertThat(coalescer.run("test@junit.com", creates::incrementAndGet)).isFalse();
+        assertThat(coalescer.run(" Test@JUnit.com ", creates::incrementAndGet)).isFalse();
+        assertThat(coalescer.run("other@junit.com", creates::incrementAndGet)).isTrue();
+        coalescer.consumed("test@junit.com");
+        assertThat(coalescer.run("test@junit.com", creates::incrementAndGet)).isTrue();
+
+        assertThat(creates).hasValue(3);
+    }
+
+    @Test
+    void run_CreateFails_NoCooldown() {
+        OtpCreateCoalescer coalescer = new OtpCreateCoalescer(60, 100, new SimpleMeterRegistry());
+
+        assertThatThrownBy(() -> coalescer.run("test@junit.com", () -> {
+            throw new IllegalStateException("mail down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(coalescer.run("test@junit.com", () -> {
+        })).isTrue();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,101 @@
+package org.auth.multifactor.service;
+
+import org.auth.multifactor.model.Otp;
+import org.auth.multifactor.repository.OtpRepository;
+import org.auth.multifactor.service.enumeration.OtpValidationStatus;
+import org.auth.multifactor.util.PasswordUtil;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static java.time.ZoneOffset.UTC;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.auth.multifactor.service.enumeration.OtpValidationStatus.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(properties = "application.cache.otp.enabled=true")
+@ActiveProfiles("test")
+class OtpServiceImplCacheTest {
+
+    @MockBean
+    private OtpRepository otpRepository;
+    @MockBean
+    private OutgoingMessageService emailSender;
+    @SpyBean
+    private PasswordUtil passwordUtil;
+
+    @Captor
+    private ArgumentCaptor<String> stringCaptor;
+
+    @Autowired
+    private OtpServiceImpl otpServiceImpl;
+
+    private PasswordUtil testPasswordUtil = new PasswordUtil();
+    private String mockPass = "123456";
+
+    @Test
+    void validate_NotFoundCached_DatabaseQueriedOnce() {
+        String email = "not-found@junit.com";
+        when(otpRepository.findTopByEmailOrderByExpirationDateTimeDesc(anyString())).thenReturn(Optional.empty());
+
+        assertThat(otpServiceImpl.validate(email, mockPass)).isEqualTo(NOT_FOUND);
+        assertThat(otpServiceImpl.validate(email, mockPass)).isEqualTo(NOT_FOUND);
+
+        verify(otpRepository, times(1)).findTopByEmailOrderByExpirationDateTimeDesc(email);
+    }
+
+    @Test
+    void validate_CreatedOtpCached_DatabaseNotQueried() {
+        String email = "created@junit.com";
+        when(passwordUtil.generateOneTimePassword()).thenReturn(mockPass);
+        when(otpRepository.save(any(Otp.class))).thenAnswer(invocation -> {
+            Otp otp = invocation.getArgument(0);
+            otp.setId("created-id");
+            return otp;
+        });
+        when(otpRepository.markUsed(eq("created-id"), any(LocalDateTime.class))).thenReturn(true);
+
+        otpServiceImpl.create(email);
+        OtpValidationStatus actualStatus = otpServiceImpl.validate(email, mockPass);
+
+        assertThat(actualStatus).isEqualTo(VALID);
+        verify(otpRepository, never()).findTopByEmailOrderByExpirationDateTimeDesc(anyString());
+    }
+
+    @Test
+    void validate_UsedOtpCached_UsedReturnedWithoutHashing() {
+        String email = "used@junit.com";
+        Otp mockOtp = buildMockOtp(email);
+        when(otpRepository.findTopByEmailOrderByExpirationDateTimeDesc(anyString())).thenReturn(Optional.of(mockOtp));
+        when(otpRepository.markUsed(eq(mockOtp.getId()), any(LocalDateTime.class))).thenReturn(true);
+
+        assertThat(otpServiceImpl.validate(email, mockPass)).isEqualTo(VALID);
+        assertThat(otpServiceImpl.validate(email, mockPass)).isEqualTo(USED);
+
+        verify(passwordUtil, times(1)).generateHash(stringCaptor.capture(), any(byte[].class));
+        verify(otpRepository, times(1)).findTopByEmailOrderByExpirationDateTimeDesc(email);
+    }
+
+    private Otp buildMockOtp(String email) {
+        Otp mockOtp = new Otp();
+        mockOtp.setId(email + "-id");
+        mockOtp.setEmail(email);
+        mockOtp.setSalt(testPasswordUtil.generateSalt());
+        mockOtp.setOtp(testPasswordUtil.generateHash(mockPass, mockOtp.getSalt()));
+        mockOtp.setExpirationDateTime(LocalDateTime.now(UTC).plusMinutes(3));
+        mockOtp.setUsed(false);
+        return mockOtp;
+    }
+
+}
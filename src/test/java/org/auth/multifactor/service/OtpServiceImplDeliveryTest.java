@@ -0,0 +1,80 @@
+package org.auth.multifactor.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.Address;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import org.auth.multifactor.repository.OtpRepository;
+import org.auth.multifactor.service.mail.PooledJavaMailSender;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.auth.multifactor.service.enumeration.OtpCreationStatus.CREATED;
+import static org.auth.multifactor.service.enumeration.OtpCreationStatus.DELIVERY_FAILED;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Batch creation against a real mail sender, with only the SMTP transport mocked.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class OtpServiceImplDeliveryTest {
+
+    @MockBean
+    private OtpRepository otpRepository;
+
+    @Autowired
+    private OtpServiceImpl otpServiceImpl;
+
+    @Test
+    void createBatch_RecipientRejected_OnlyThatEmailDeliveryFailed() {
+        List<OtpCreationResult> results = otpServiceImpl.create(List.of("delivered@junit.com", "rejected@junit.com", "also-delivered@junit.com"));
+
+        assertThat(results).containsExactly(
+                new OtpCreationResult("delivered@junit.com", CREATED),
+                new OtpCreationResult("rejected@junit.com", DELIVERY_FAILED),
+                new OtpCreationResult("also-delivered@junit.com", CREATED));
+        verify(otpRepository).insert(anyList());
+    }
+
+    @TestConfiguration
+    static class RejectingTransportConfig {
+
+        @Bean
+        JavaMailSender mailSender() throws MessagingException {
+            Transport transport = mock(Transport.class);
+            when(transport.isConnected()).thenReturn(true);
+            doAnswer(invocation -> {
+                Address[] addresses = invocation.getArgument(1);
+                if (addresses[0].toString().startsWith("rejected@")) {
+                    throw new MessagingException("550 mailbox unavailable");
+                }
+                return null;
+            }).when(transport).sendMessage(any(Message.class), any(Address[].class));
+
+            return new PooledJavaMailSender(1, 100, 60, 60000, 1000, new SimpleMeterRegistry()) {
+                @Override
+                protected Transport connectTransport() {
+                    return transport;
+                }
+            };
+        }
+
+    }
+
+}
\ No newline at end of file
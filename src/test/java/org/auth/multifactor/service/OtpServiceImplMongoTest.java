@@ -0,0 +1,123 @@
+package org.auth.multifactor.service;
+
+import org.auth.multifactor.model.Otp;
+import org.auth.multifactor.repository.OtpRepository;
+import org.auth.multifactor.service.enumeration.OtpValidationStatus;
+import org.auth.multifactor.util.PasswordUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static java.time.ZoneOffset.UTC;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.auth.multifactor.service.enumeration.OtpValidationStatus.USED;
+import static org.auth.multifactor.service.enumeration.OtpValidationStatus.VALID;
+
+/**
+ * Races validations against a real MongoDB, so exactly-once consumption is decided by the server applying
+ * the conditional update. Skipped when Docker is not available.
+ */
+@SpringBootTest(properties = "spring.autoconfigure.exclude=")
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+class OtpServiceImplMongoTest {
+
+    private static final int CALLERS = 16;
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:6.0");
+
+    @MockBean
+    private OutgoingMessageService emailSender;
+
+    @Autowired
+    private OtpServiceImpl otpServiceImpl;
+    @Autowired
+    private OtpRepository otpRepository;
+
+    private PasswordUtil testPasswordUtil = new PasswordUtil();
+    private String mockEmail = "junit@junit.com";
+    private String mockPass = "123456";
+
+    @BeforeEach
+    void setUp() {
+        otpRepository.deleteAll();
+    }
+
+    @Test
+    void validate_ConcurrentValidations_ExactlyOneValidReturned() throws Exception {
+        otpRepository.insert(buildOtp(LocalDateTime.now(UTC).plusMinutes(3)));
+
+        List<OtpValidationStatus> statuses = race(() -> otpServiceImpl.validate(mockEmail, mockPass));
+
+        assertThat(statuses).containsOnlyOnce(VALID);
+        assertThat(statuses).filteredOn(status -> status != VALID).containsOnly(USED);
+    }
+
+    @Test
+    void markUsed_ConcurrentCalls_ExactlyOneMarks() throws Exception {
+        Otp otp = otpRepository.insert(buildOtp(LocalDateTime.now(UTC).plusMinutes(3)));
+
+        List<Boolean> marked = race(() -> otpRepository.markUsed(otp.getId(), LocalDateTime.now(UTC)));
+
+        assertThat(marked).containsOnlyOnce(true);
+        assertThat(otpRepository.findTopByEmailOrderByExpirationDateTimeDesc(mockEmail)).hasValueSatisfying(stored -> assertThat(stored.isUsed()).isTrue());
+    }
+
+    @Test
+    void markUsed_ExpiredCode_NotMarked() {
+        Otp otp = otpRepository.insert(buildOtp(LocalDateTime.now(UTC).minusSeconds(1)));
+
+        assertThat(otpRepository.markUsed(otp.getId(), LocalDateTime.now(UTC))).isFalse();
+        assertThat(otpRepository.findTopByEmailOrderByExpirationDateTimeDesc(mockEmail)).hasValueSatisfying(stored -> assertThat(stored.isUsed()).isFalse());
+    }
+
+    private <T> List<T> race(Callable<T> call) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<T>> futures = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return call.call();
+            }));
+        }
+        start.countDown();
+
+        List<T> results = new ArrayList<>();
+        for (Future<T> future : futures) {
+            results.add(future.get(1, TimeUnit.MINUTES));
+        }
+        executor.shutdown();
+        return results;
+    }
+
+    private Otp buildOtp(LocalDateTime expirationDateTime) {
+        Otp otp = new Otp();
+        otp.setEmail(mockEmail);
+        otp.setSalt(testPasswordUtil.generateSalt());
+        otp.setOtp(testPasswordUtil.generateHash(mockPass, otp.getSalt()));
+        otp.setExpirationDateTime(expirationDateTime);
+        otp.setUsed(false);
+        return otp;
+    }
+
+}
\ No newline at end of file
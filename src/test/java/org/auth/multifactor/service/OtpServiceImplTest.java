@@ -1,8 +1,12 @@
 package org.auth.multifactor.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
 import org.auth.multifactor.model.Otp;
 import org.auth.multifactor.repository.OtpRepository;
 import org.auth.multifactor.service.enumeration.OtpValidationStatus;
+import org.auth.multifactor.service.hashing.HmacOtpHashingStrategy;
+import org.auth.multifactor.service.hashing.Pbkdf2OtpHashingStrategy;
 import org.auth.multifactor.util.PasswordUtil;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -11,16 +15,29 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static java.time.ZoneOffset.UTC;
 import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.auth.multifactor.service.enumeration.OtpCreationStatus.*;
 import static org.auth.multifactor.service.enumeration.OtpValidationStatus.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -41,9 +58,17 @@ class OtpServiceImplTest {
     private ArgumentCaptor<Otp> otpCaptor;
     @Captor
     private ArgumentCaptor<byte[]> byteCaptor;
+    @Captor
+    private ArgumentCaptor<List<Otp>> otpListCaptor;
+    @Captor
+    private ArgumentCaptor<Map<String, String>> passwordsCaptor;
 
     @Autowired
     private OtpServiceImpl otpServiceImpl;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private HmacOtpHashingStrategy hmacOtpHashingStrategy;
 
     private PasswordUtil testPasswordUtil = new PasswordUtil();
     private String mockEmail = "junit@junit.com";
@@ -64,16 +89,51 @@ class OtpServiceImplTest {
         assertThat(actualOtp.getEmail()).isEqualTo(mockEmail);
         assertThat(actualOtp.getOtp()).isExactlyInstanceOf(byte[].class);
         assertThat(actualOtp.getSalt()).isExactlyInstanceOf(byte[].class);
+        assertThat(actualOtp.getHashAlgorithm()).isEqualTo(Pbkdf2OtpHashingStrategy.ALGORITHM);
+        assertThat(actualOtp.getHashParameters()).containsEntry("iterations", "210000");
         assertThat(actualOtp.getExpirationDateTime()).isAfter(LocalDateTime.now(UTC));
         assertThat(actualOtp.isUsed()).isFalse();
     }
 
+    @Test
+    void create_Batch_SingleInsertAndBatchedDelivery() {
+        List<String> emails = asList("batch-1@junit.com", "batch-2@junit.com", "batch-1@junit.com", "batch-3@junit.com");
+        when(emailSender.sendMessages(anyString(), anyMap())).thenReturn(Map.of("batch-3@junit.com", new IllegalStateException("relay down")));
+
+        List<OtpCreationResult> actualResults = otpServiceImpl.create(emails);
+
+        assertThat(actualResults).containsExactly(
+                new OtpCreationResult("batch-1@junit.com", CREATED),
+                new OtpCreationResult("batch-2@junit.com", CREATED),
+                new OtpCreationResult("batch-3@junit.com", DELIVERY_FAILED));
+
+        verify(otpRepository).insert(otpListCaptor.capture());
+        assertThat(otpListCaptor.getValue()).extracting(Otp::getEmail)
+                .containsExactly("batch-1@junit.com", "batch-2@junit.com", "batch-3@junit.com");
+        assertThat(otpListCaptor.getValue()).allSatisfy(otp -> assertThat(otp.getHashAlgorithm()).isEqualTo(Pbkdf2OtpHashingStrategy.ALGORITHM));
+        verify(otpRepository, never()).save(any(Otp.class));
+
+        verify(emailSender).sendMessages(eq("Auth Code"), passwordsCaptor.capture());
+        assertThat(passwordsCaptor.getValue()).containsOnlyKeys("batch-1@junit.com", "batch-2@junit.com", "batch-3@junit.com");
+    }
+
+    @Test
+    void create_BatchInsertFails_StorageFailedReported() {
+        when(otpRepository.insert(anyList())).thenThrow(new DataAccessResourceFailureException("down"));
+
+        List<OtpCreationResult> actualResults = otpServiceImpl.create(asList("batch-4@junit.com", "batch-5@junit.com"));
+
+        assertThat(actualResults).extracting(OtpCreationResult::status).containsOnly(STORAGE_FAILED);
+        verify(emailSender, never()).sendMessages(anyString(), anyMap());
+    }
+
     @Test
     void validate() {
         Otp mockOtp = buildMockOtp();
 
         when(passwordUtil.generateOneTimePassword()).thenReturn(mockPass);
         when(otpRepository.findTopByEmailOrderByExpirationDateTimeDesc(anyString())).thenReturn(Optional.of(mockOtp));
+        when(otpRepository.markUsed(eq(mockOtp.getId()), any(LocalDateTime.class))).thenReturn(true);
 
         OtpValidationStatus actualStatus = otpServiceImpl.validate(mockEmail, mockPass);
 
@@ -86,11 +146,78 @@ class OtpServiceImplTest {
         assertThat(stringCaptor.getValue()).isEqualTo(mockPass);
         assertThat(byteCaptor.getValue()).isEqualTo(mockOtp.getSalt());
 
-        verify(otpRepository).save(otpCaptor.capture());
-        assertThat(otpCaptor.getValue())
-                .usingRecursiveComparison()
-                .isEqualTo(mockOtp);
+        verify(otpRepository).markUsed(eq(mockOtp.getId()), any(LocalDateTime.class));
+        verify(otpRepository, never()).save(any(Otp.class));
+
+    }
 
+    @Test
+    void validate_StagesAndOutcomeRecorded() {
+        Otp mockOtp = buildMockOtp();
+        double validBefore = meterRegistry.get("otp.validation").tag("status", "VALID").counter().count();
+        double invalidBefore = meterRegistry.get("otp.validation").tag("status", "INVALID").counter().count();
+
+        when(otpRepository.findTopByEmailOrderByExpirationDateTimeDesc(anyString())).thenReturn(Optional.of(mockOtp));
+        when(otpRepository.markUsed(eq(mockOtp.getId()), any(LocalDateTime.class))).thenReturn(true);
+
+        otpServiceImpl.validate(mockEmail, "000000");
+        otpServiceImpl.validate(mockEmail, mockPass);
+
+        assertThat(meterRegistry.get("otp.validation").tag("status", "VALID").counter().count()).isEqualTo(validBefore + 1);
+        assertThat(meterRegistry.get("otp.validation").tag("status", "INVALID").counter().count()).isEqualTo(invalidBefore + 1);
+        assertThat(meterRegistry.get("otp.stage").tag("operation", "validate").tag("stage", "lookup").timer().count()).isPositive();
+        assertThat(meterRegistry.get("otp.stage").tag("operation", "validate").tag("stage", "hash").timer().count()).isPositive();
+        assertThat(meterRegistry.get("otp.stage").tag("operation", "validate").tag("stage", "consume").timer().count()).isPositive();
+        assertThat(meterRegistry.get("otp.stage").meters()).allSatisfy(meter ->
+                assertThat(meter.getId().getTags()).extracting(Tag::getKey).containsOnly("operation", "stage", "application"));
+    }
+
+    @Test
+    void validate_ConcurrentValidations_ExactlyOneValidReturned() throws Exception {
+        Otp mockOtp = buildMockOtp();
+        AtomicBoolean used = new AtomicBoolean();
+
+        when(otpRepository.findTopByEmailOrderByExpirationDateTimeDesc(anyString())).thenReturn(Optional.of(mockOtp));
+        when(otpRepository.markUsed(eq(mockOtp.getId()), any(LocalDateTime.class)))
+                .thenAnswer(invocation -> used.compareAndSet(false, true));
+
+        int validations = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(validations);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<OtpValidationStatus>> futures = new ArrayList<>();
+        for (int i = 0; i < validations; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return otpServiceImpl.validate(mockEmail, mockPass);
+            }));
+        }
+        start.countDown();
+
+        List<OtpValidationStatus> actualStatuses = new ArrayList<>();
+        for (Future<OtpValidationStatus> future : futures) {
+            actualStatuses.add(future.get(1, TimeUnit.MINUTES));
+        }
+        executor.shutdown();
+
+        assertThat(actualStatuses).containsOnlyOnce(VALID);
+        assertThat(actualStatuses).filteredOn(status -> status != VALID).containsOnly(USED);
+    }
+
+    @Test
+    void validate_OtpHashedWithHmac_ValidReturned() {
+        Otp mockOtp = buildMockOtp();
+        mockOtp.setHashAlgorithm(HmacOtpHashingStrategy.ALGORITHM);
+        mockOtp.setHashParameters(hmacOtpHashingStrategy.getParameters());
+        mockOtp.setOtp(hmacOtpHashingStrategy.generateHash(mockPass, mockOtp.getSalt(), mockOtp.getHashParameters()));
+
+        when(otpRepository.findTopByEmailOrderByExpirationDateTimeDesc(anyString())).thenReturn(Optional.of(mockOtp));
+        when(otpRepository.markUsed(eq(mockOtp.getId()), any(LocalDateTime.class))).thenReturn(true);
+
+        OtpValidationStatus actualStatus = otpServiceImpl.validate(mockEmail, mockPass);
+
+        assertThat(actualStatus).isEqualTo(VALID);
+        verify(passwordUtil, never()).generateHash(anyString(), any(byte[].class));
+        verify(passwordUtil, never()).generateHash(anyString(), any(byte[].class), anyInt());
     }
 
     @Test
@@ -126,6 +253,18 @@ class OtpServiceImplTest {
         assertThat(actualStatus).isEqualTo(USED);
     }
 
+    @Test
+    void validate_OtpConsumedConcurrently_UsedReturned() {
+        Otp mockOtp = buildMockOtp();
+
+        when(otpRepository.findTopByEmailOrderByExpirationDateTimeDesc(anyString())).thenReturn(Optional.of(mockOtp));
+        when(otpRepository.markUsed(eq(mockOtp.getId()), any(LocalDateTime.class))).thenReturn(false);
+
+        OtpValidationStatus actualStatus = otpServiceImpl.validate(mockEmail, mockPass);
+
+        assertThat(actualStatus).isEqualTo(USED);
+    }
+
     @Test
     void validate_DatabaseOtpIsExpired_ExpiredReturned() {
         Otp mockOtp = buildMockOtp();
@@ -141,6 +280,7 @@ class OtpServiceImplTest {
 
     private Otp buildMockOtp() {
         Otp mockOtp = new Otp();
+        mockOtp.setId("otp-id");
         mockOtp.setEmail(mockEmail);
         mockOtp.setSalt(testPasswordUtil.generateSalt());
         mockOtp.setOtp(testPasswordUtil.generateHash(mockPass, mockOtp.getSalt()));
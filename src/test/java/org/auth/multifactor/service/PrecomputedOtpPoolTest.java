@@ -0,0 +1,83 @@
+package org.auth.multifactor.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.auth.multifactor.model.Otp;
+import org.auth.multifactor.service.PrecomputedOtpPool.PrecomputedOtp;
+import org.auth.multifactor.service.hashing.OtpHashingService;
+import org.auth.multifactor.service.hashing.Pbkdf2OtpHashingStrategy;
+import org.auth.multifactor.util.HashingExecutor;
+import org.auth.multifactor.util.PasswordUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PrecomputedOtpPoolTest {
+
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PasswordUtil passwordUtil = new PasswordUtil();
+    private HashingExecutor hashingExecutor = new HashingExecutor(1, 1, 1, meterRegistry);
+    private OtpHashingService otpHashingService;
+    private PrecomputedOtpPool precomputedOtpPool;
+
+    @BeforeEach
+    void setUp() {
+        Pbkdf2OtpHashingStrategy pbkdf2 = new Pbkdf2OtpHashingStrategy(passwordUtil);
+        ReflectionTestUtils.setField(pbkdf2, "iterations", 1000);
+        otpHashingService = new OtpHashingService(Pbkdf2OtpHashingStrategy.ALGORITHM, List.of(pbkdf2), hashingExecutor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (precomputedOtpPool != null) {
+            precomputedOtpPool.stop();
+        }
+        hashingExecutor.shutdown();
+    }
+
+    @Test
+    void take_PoolRefilled_HitReturned() throws InterruptedException {
+        precomputedOtpPool = new PrecomputedOtpPool(true, 1, 1000, passwordUtil, otpHashingService, hashingExecutor, meterRegistry);
+        precomputedOtpPool.start();
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (meterRegistry.get("otp.pool.size").gauge().value() < 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        Optional<PrecomputedOtp> actual = precomputedOtpPool.take();
+
+        assertThat(actual).isPresent();
+
+        Otp otp = new Otp();
+        otp.setOtp(actual.get().hash().value());
+        otp.setSalt(actual.get().salt());
+        otp.setHashAlgorithm(actual.get().hash().algorithm());
+        otp.setHashParameters(actual.get().hash().parameters());
+        assertThat(otpHashingService.matches(actual.get().password(), otp)).isTrue();
+        assertThat(meterRegistry.get("otp.pool.requests").tag("result", "hit").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void take_PoolDisabled_EmptyReturned() {
+        precomputedOtpPool = new PrecomputedOtpPool(false, 1, 1000, passwordUtil, otpHashingService, hashingExecutor, meterRegistry);
+        precomputedOtpPool.start();
+
+        assertThat(precomputedOtpPool.take()).isEmpty();
+        assertThat(meterRegistry.get("otp.pool.requests").tag("result", "miss").counter().count()).isZero();
+    }
+
+    @Test
+    void new_EnabledWithoutRefillRate_Rejected() {
+        assertThatThrownBy(() -> new PrecomputedOtpPool(true, 1, 0, passwordUtil, otpHashingService, hashingExecutor, meterRegistry))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("application.otp-pool.refill-per-second");
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,179 @@
+package org.auth.multifactor.service;
+
+import org.auth.multifactor.model.TotpSecret;
+import org.auth.multifactor.repository.OtpRepository;
+import org.auth.multifactor.repository.TotpSecretRepository;
+import org.auth.multifactor.util.Totp;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Optional;
+
+import static java.time.ZoneOffset.UTC;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.auth.multifactor.service.enumeration.OtpValidationStatus.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = "application.totp.enabled=true")
+@ActiveProfiles("test")
+class TotpServiceImplTest {
+
+    private static final byte[] SECRET = "12345678901234567890".getBytes(StandardCharsets.US_ASCII);
+
+    @MockBean
+    private TotpSecretRepository totpSecretRepository;
+    @MockBean
+    private Clock clock;
+    @MockBean
+    private OtpRepository otpRepository;
+    @MockBean
+    private OutgoingMessageService emailSender;
+    @MockBean
+    private OtpService otpServiceImpl;
+
+    @Captor
+    private ArgumentCaptor<TotpSecret> secretCaptor;
+
+    @Autowired
+    private TotpServiceImpl totpServiceImpl;
+
+    @BeforeEach
+    void setUp() {
+        when(clock.getZone()).thenReturn(UTC);
+        setTime(1111111109L);
+    }
+
+    @Test
+    void enroll() {
+        when(otpServiceImpl.validate("enroll@junit.com", "123456")).thenReturn(VALID);
+
+        TotpEnrollmentResult result = totpServiceImpl.enroll("enroll@junit.com", "123456");
+
+        verify(totpSecretRepository).insert(secretCaptor.capture());
+        TotpSecret stored = secretCaptor.getValue();
+        assertThat(stored.getEmail()).isEqualTo("enroll@junit.com");
+        assertThat(stored.getSecret()).hasSize(20);
+        assertThat(result.proof()).isEqualTo(VALID);
+        assertThat(result.otpauthUri()).isEqualTo("otpauth://totp/Multi%20Factor%20Authentication:enroll%40junit.com?secret="
+                + Totp.base32(stored.getSecret()) + "&issuer=Multi%20Factor%20Authentication&algorithm=SHA1&digits=6&period=30");
+    }
+
+    @Test
+    void enroll_EmailedCodeNotValid_NothingStored() {
+        when(otpServiceImpl.validate("victim@junit.com", "000000")).thenReturn(INVALID);
+
+        TotpEnrollmentResult result = totpServiceImpl.enroll("victim@junit.com", "000000");
+
+        assertThat(result.proof()).isEqualTo(INVALID);
+        assertThat(result.enrolled()).isFalse();
+        verify(totpSecretRepository, never()).insert(any(TotpSecret.class));
+    }
+
+    @Test
+    void enroll_AlreadyEnrolled_SecretKept() {
+        when(otpServiceImpl.validate("enrolled@junit.com", "123456")).thenReturn(VALID);
+        when(totpSecretRepository.insert(any(TotpSecret.class))).thenThrow(new DuplicateKeyException("duplicate"));
+
+        TotpEnrollmentResult result = totpServiceImpl.enroll("enrolled@junit.com", "123456");
+
+        assertThat(result.proof()).isEqualTo(VALID);
+        assertThat(result.enrolled()).isFalse();
+        verify(totpSecretRepository, never()).save(any(TotpSecret.class));
+    }
+
+    @Test
+    void reset_EmailedCodeValid_SecretReplaced() {
+        enrolled("reset@junit.com");
+        when(otpServiceImpl.validate("reset@junit.com", "123456")).thenReturn(VALID);
+        assertThat(totpServiceImpl.validate("reset@junit.com", code(1111111109L))).isEqualTo(VALID);
+
+        TotpEnrollmentResult result = totpServiceImpl.reset("reset@junit.com", "123456");
+
+        verify(totpSecretRepository).save(secretCaptor.capture());
+        TotpSecret stored = secretCaptor.getValue();
+        assertThat(stored.getSecret()).hasSize(20).isNotEqualTo(SECRET);
+        assertThat(result.otpauthUri()).contains("secret=" + Totp.base32(stored.getSecret()));
+
+        when(totpSecretRepository.findById("reset@junit.com")).thenReturn(Optional.of(stored));
+        String newCode = Totp.generate(stored.getSecret(), 1111111109L / 30, 6, "HmacSHA1");
+        assertThat(totpServiceImpl.validate("reset@junit.com", newCode)).isEqualTo(VALID);
+    }
+
+    @Test
+    void reset_EmailedCodeNotValid_SecretKept() {
+        when(otpServiceImpl.validate("reset-denied@junit.com", "000000")).thenReturn(USED);
+
+        TotpEnrollmentResult result = totpServiceImpl.reset("reset-denied@junit.com", "000000");
+
+        assertThat(result.proof()).isEqualTo(USED);
+        verify(totpSecretRepository, never()).save(any(TotpSecret.class));
+    }
+
+    @Test
+    void validate_NotEnrolled() {
+        assertThat(totpServiceImpl.validate("unknown@junit.com", "081804")).isEqualTo(NOT_FOUND);
+    }
+
+    @Test
+    void validate_CurrentAndAdjacentSteps_Accepted() {
+        enrolled("window@junit.com");
+
+        assertThat(totpServiceImpl.validate("window@junit.com", code(1111111109L - 30))).isEqualTo(VALID);
+        assertThat(totpServiceImpl.validate("window@junit.com", code(1111111109L))).isEqualTo(VALID);
+        assertThat(totpServiceImpl.validate("window@junit.com", code(1111111109L + 30))).isEqualTo(VALID);
+    }
+
+    @Test
+    void validate_OutsideWindow_Invalid() {
+        enrolled("drift@junit.com");
+
+        assertThat(totpServiceImpl.validate("drift@junit.com", code(1111111109L - 60))).isEqualTo(INVALID);
+        assertThat(totpServiceImpl.validate("drift@junit.com", "000000")).isEqualTo(INVALID);
+    }
+
+    @Test
+    void validate_Replayed_Used() {
+        enrolled("replay@junit.com");
+        String code = code(1111111109L);
+
+        assertThat(totpServiceImpl.validate("replay@junit.com", code)).isEqualTo(VALID);
+        assertThat(totpServiceImpl.validate("replay@junit.com", code)).isEqualTo(USED);
+        assertThat(totpServiceImpl.validate("replay@junit.com", code(1111111109L - 30))).isEqualTo(USED);
+
+        setTime(1111111109L + 30);
+        assertThat(totpServiceImpl.validate("replay@junit.com", code)).isEqualTo(USED);
+        assertThat(totpServiceImpl.validate("replay@junit.com", code(1111111109L + 30))).isEqualTo(VALID);
+    }
+
+    private void enrolled(String email) {
+        TotpSecret totpSecret = new TotpSecret();
+        totpSecret.setEmail(email);
+        totpSecret.setSecret(SECRET);
+        totpSecret.setAlgorithm("HmacSHA1");
+        totpSecret.setDigits(6);
+        totpSecret.setPeriodSeconds(30);
+        when(totpSecretRepository.findById(email)).thenReturn(Optional.of(totpSecret));
+    }
+
+    private void setTime(long epochSecond) {
+        when(clock.instant()).thenReturn(Instant.ofEpochSecond(epochSecond));
+    }
+
+    private static String code(long epochSecond) {
+        return Totp.generate(SECRET, epochSecond / 30, 6, "HmacSHA1");
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,95 @@
+package org.auth.multifactor.service.mail;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.Address;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class PooledJavaMailSenderTest {
+
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private Deque<Transport> transports = new ArrayDeque<>();
+    private int connects;
+
+    private PooledJavaMailSender mailSender = new PooledJavaMailSender(2, 100, 60, 60000, 1000, meterRegistry) {
+        @Override
+        protected Transport connectTransport() {
+            connects++;
+            return transports.pop();
+        }
+    };
+
+    @Test
+    void send_ConsecutiveSends_ConnectionReused() throws Exception {
+        Transport transport = connectedTransport();
+        transports.push(transport);
+
+        mailSender.send(buildMessage("first@junit.com"));
+        mailSender.send(buildMessage("second@junit.com"));
+
+        assertThat(connects).isEqualTo(1);
+        verify(transport, times(2)).sendMessage(any(Message.class), any(Address[].class));
+        verify(transport, never()).close();
+        assertThat(meterRegistry.get("otp.mail.connections").tag("reused", "true").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("otp.mail.connections").tag("reused", "false").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("otp.mail.send").tag("result", "success").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void send_ConnectionDroppedByServer_SentOnNewConnection() throws Exception {
+        Transport dropped = connectedTransport();
+        doThrow(new MessagingException("421 closing connection")).when(dropped).sendMessage(any(Message.class), any(Address[].class));
+        when(dropped.isConnected()).thenReturn(false);
+        Transport fresh = connectedTransport();
+        transports.add(dropped);
+        transports.add(fresh);
+
+        mailSender.send(buildMessage("first@junit.com"));
+
+        assertThat(connects).isEqualTo(2);
+        verify(dropped).close();
+        verify(fresh).sendMessage(any(Message.class), any(Address[].class));
+    }
+
+    @Test
+    void send_MessageRejected_ConnectionKeptForNextSend() throws Exception {
+        Transport transport = connectedTransport();
+        doThrow(new MessagingException("550 mailbox unavailable")).doNothing()
+                .when(transport).sendMessage(any(Message.class), any(Address[].class));
+        transports.push(transport);
+
+        assertThatThrownBy(() -> mailSender.send(buildMessage("unknown@junit.com"))).isInstanceOf(MailSendException.class);
+        mailSender.send(buildMessage("second@junit.com"));
+
+        assertThat(connects).isEqualTo(1);
+        verify(transport, never()).close();
+    }
+
+    private Transport connectedTransport() {
+        Transport transport = mock(Transport.class);
+        when(transport.isConnected()).thenReturn(true);
+        return transport;
+    }
+
+    private SimpleMailMessage buildMessage(String to) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom("noreply@junit.com");
+        message.setTo(to);
+        message.setSubject("Auth Code");
+        message.setText("123456");
+        return message;
+    }
+
+}
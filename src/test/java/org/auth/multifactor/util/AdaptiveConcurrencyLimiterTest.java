@@ -0,0 +1,80 @@
+package org.auth.multifactor.util;
+
+import org.auth.multifactor.util.AdaptiveConcurrencyLimiter.Priority;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    @Test
+    void tryAcquire_LimitReached_Shed() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 0.5, 1.0, 0, nanoTime::get);
+
+        assertThat(limiter.tryAcquire(Priority.HIGH)).isTrue();
+        assertThat(limiter.tryAcquire(Priority.HIGH)).isTrue();
+        assertThat(limiter.tryAcquire(Priority.HIGH)).isFalse();
+
+        limiter.release(false);
+        assertThat(limiter.tryAcquire(Priority.HIGH)).isTrue();
+    }
+
+    @Test
+    void tryAcquire_LowPriority_LimitedToShare() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 10, 0.5, 0.8, 0, nanoTime::get);
+
+        for (int i = 0; i < 8; i++) {
+            assertThat(limiter.tryAcquire(Priority.LOW)).isTrue();
+        }
+        assertThat(limiter.tryAcquire(Priority.LOW)).isFalse();
+        assertThat(limiter.tryAcquire(Priority.HIGH)).isTrue();
+        assertThat(limiter.tryAcquire(Priority.HIGH)).isTrue();
+        assertThat(limiter.tryAcquire(Priority.HIGH)).isFalse();
+    }
+
+    @Test
+    void release_Overloaded_ShrinksOncePerIntervalDownToMinimum() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(40, 8, 100, 0.5, 1.0, 1_000, nanoTime::get);
+
+        acquireAndRelease(limiter, true);
+        acquireAndRelease(limiter, true);
+        assertThat(limiter.getLimit()).isEqualTo(20);
+
+        nanoTime.addAndGet(1_000);
+        acquireAndRelease(limiter, true);
+        assertThat(limiter.getLimit()).isEqualTo(10);
+
+        nanoTime.addAndGet(1_000);
+        acquireAndRelease(limiter, true);
+        assertThat(limiter.getLimit()).isEqualTo(8);
+    }
+
+    @Test
+    void release_Recovered_GrowsWhileLimitIsUsed() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 5, 0.5, 1.0, 0, nanoTime::get);
+
+        // a single request in flight does not use the limit, so it is not grown
+        acquireAndRelease(limiter, false);
+        assertThat(limiter.getLimit()).isEqualTo(4);
+
+        for (int i = 0; i < 20; i++) {
+            for (int j = 0; j < 4; j++) {
+                limiter.tryAcquire(Priority.HIGH);
+            }
+            for (int j = 0; j < 4; j++) {
+                limiter.release(false);
+            }
+        }
+        assertThat(limiter.getLimit()).isEqualTo(5);
+    }
+
+    private static void acquireAndRelease(AdaptiveConcurrencyLimiter limiter, boolean overloaded) {
+        assertThat(limiter.tryAcquire(Priority.HIGH)).isTrue();
+        limiter.release(overloaded);
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,75 @@
+package org.auth.multifactor.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.auth.multifactor.service.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HashingExecutorTest {
+
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private HashingExecutor hashingExecutor = new HashingExecutor(1, 1, 2, meterRegistry);
+
+    @AfterEach
+    void tearDown() {
+        hashingExecutor.shutdown();
+    }
+
+    @Test
+    void execute() {
+        assertThat(hashingExecutor.execute(() -> "hash")).isEqualTo("hash");
+        assertThat(meterRegistry.get("otp.hashing.queue.wait").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void submit_QueueFull_ServiceUnavailableThrown() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        hashingExecutor.submit(() -> {
+            started.countDown();
+            await(release);
+            return null;
+        });
+        started.await();
+        hashingExecutor.submit(() -> null);
+
+        assertThatThrownBy(() -> hashingExecutor.submit(() -> null))
+                .isInstanceOf(ServiceUnavailableException.class)
+                .extracting("retryAfterSeconds").isEqualTo(2L);
+        assertThat(meterRegistry.get("otp.hashing.rejected").counter().count()).isEqualTo(1);
+
+        release.countDown();
+    }
+
+    @Test
+    void isIdle_WorkersBusyWithNothingQueued_NotIdle() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        assertThat(hashingExecutor.isIdle()).isTrue();
+
+        hashingExecutor.submit(() -> {
+            started.countDown();
+            await(release);
+            return null;
+        });
+        started.await();
+
+        assertThat(hashingExecutor.isIdle()).isFalse();
+        release.countDown();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
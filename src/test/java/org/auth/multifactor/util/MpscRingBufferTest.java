@@ -0,0 +1,60 @@
+package org.auth.multifactor.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MpscRingBufferTest {
+
+    @Test
+    void offer_Full_Refused() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(3);
+
+        assertThat(buffer.capacity()).isEqualTo(4);
+        IntStream.range(0, 4).forEach(i -> assertThat(buffer.offer(i)).isTrue());
+        assertThat(buffer.offer(4)).isFalse();
+
+        List<Integer> drained = new ArrayList<>();
+        assertThat(buffer.drain(drained::add, 2)).isEqualTo(2);
+        assertThat(buffer.offer(5)).isTrue();
+        assertThat(buffer.drain(drained::add, 10)).isEqualTo(3);
+        assertThat(drained).containsExactly(0, 1, 2, 3, 5);
+        assertThat(buffer.size()).isZero();
+    }
+
+    @Test
+    void offer_ConcurrentProducers_EveryAcceptedElementDrainedOnce() throws Exception {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(1024);
+        Set<Integer> accepted = Collections.synchronizedSet(new HashSet<>());
+        List<Integer> drained = new ArrayList<>();
+
+        List<CompletableFuture<Void>> producers = IntStream.range(0, 4)
+                .mapToObj(producer -> CompletableFuture.runAsync(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        int element = producer * 10_000 + i;
+                        if (buffer.offer(element)) {
+                            accepted.add(element);
+                        }
+                    }
+                }))
+                .toList();
+        while (!producers.stream().allMatch(CompletableFuture::isDone)) {
+            buffer.drain(drained::add, 256);
+        }
+        CompletableFuture.allOf(producers.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+        buffer.drain(drained::add, Integer.MAX_VALUE);
+
+        assertThat(drained).hasSize(accepted.size()).doesNotHaveDuplicates();
+        assertThat(new HashSet<>(drained)).isEqualTo(accepted);
+    }
+
+}
\ No newline at end of file
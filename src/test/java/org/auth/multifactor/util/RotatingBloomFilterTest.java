@@ -0,0 +1,53 @@
+package org.auth.multifactor.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.security.SecureRandom;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RotatingBloomFilterTest {
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Test
+    void add_SameKeyTwice_SecondReportedPresent() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(60, 1000, 0.000001);
+        byte[] key = randomKey();
+
+        assertThat(filter.add(key, 1_000, 900)).isTrue();
+        assertThat(filter.add(key, 1_000, 900)).isFalse();
+        assertThat(filter.add(randomKey(), 1_000, 900)).isTrue();
+    }
+
+    @Test
+    void add_ExpectedInsertions_NoFalsePositives() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(60, 10_000, 0.000001);
+
+        long falsePositives = IntStream.range(0, 10_000).filter(i -> !filter.add(randomKey(), 1_000, 900)).count();
+
+        assertThat(falsePositives).isZero();
+    }
+
+    @Test
+    void add_BucketsExpired_Dropped() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(60, 1000, 0.000001);
+
+        filter.add(randomKey(), 1_000, 900);
+        filter.add(randomKey(), 1_100, 900);
+        assertThat(filter.bucketCount()).isEqualTo(2);
+
+        filter.add(randomKey(), 1_300, 1_080);
+        assertThat(filter.bucketCount()).isEqualTo(2);
+        filter.add(randomKey(), 1_300, 1_200);
+        assertThat(filter.bucketCount()).isEqualTo(1);
+    }
+
+    private byte[] randomKey() {
+        byte[] key = new byte[32];
+        random.nextBytes(key);
+        return key;
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,28 @@
+package org.auth.multifactor.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StackTraceSamplerTest {
+
+    @Test
+    void sample_RepeatedType_OnlyFirstWithinIntervalSampled() {
+        StackTraceSampler stackTraceSampler = new StackTraceSampler(60);
+
+        assertThat(stackTraceSampler.sample(new IllegalArgumentException())).isEqualTo(new StackTraceSampler.Sample(true, 0));
+        assertThat(stackTraceSampler.sample(new IllegalArgumentException()).logStackTrace()).isFalse();
+        assertThat(stackTraceSampler.sample(new IllegalArgumentException()).logStackTrace()).isFalse();
+        assertThat(stackTraceSampler.sample(new IllegalStateException()).logStackTrace()).isTrue();
+    }
+
+    @Test
+    void sample_IntervalElapsed_SampledWithSuppressedCount() {
+        StackTraceSampler stackTraceSampler = new StackTraceSampler(0);
+
+        stackTraceSampler.sample(new IllegalArgumentException());
+
+        assertThat(stackTraceSampler.sample(new IllegalArgumentException())).isEqualTo(new StackTraceSampler.Sample(true, 0));
+    }
+
+}
@@ -0,0 +1,39 @@
+package org.auth.multifactor.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TotpTest {
+
+    // RFC 6238 appendix B
+    private static final byte[] SHA1_SECRET = "12345678901234567890".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SHA256_SECRET = "12345678901234567890123456789012".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SHA512_SECRET = "1234567890123456789012345678901234567890123456789012345678901234".getBytes(StandardCharsets.US_ASCII);
+
+    @Test
+    void generate_Rfc6238TestVectors() {
+        assertThat(Totp.generate(SHA1_SECRET, 59 / 30, 8, "HmacSHA1")).isEqualTo("94287082");
+        assertThat(Totp.generate(SHA256_SECRET, 59 / 30, 8, "HmacSHA256")).isEqualTo("46119246");
+        assertThat(Totp.generate(SHA512_SECRET, 59 / 30, 8, "HmacSHA512")).isEqualTo("90693936");
+        assertThat(Totp.generate(SHA1_SECRET, 1111111109L / 30, 8, "HmacSHA1")).isEqualTo("07081804");
+        assertThat(Totp.generate(SHA1_SECRET, 1234567890L / 30, 8, "HmacSHA1")).isEqualTo("89005924");
+        assertThat(Totp.generate(SHA1_SECRET, 20000000000L / 30, 8, "HmacSHA1")).isEqualTo("65353130");
+        assertThat(Totp.generate(SHA512_SECRET, 20000000000L / 30, 8, "HmacSHA512")).isEqualTo("47863826");
+    }
+
+    @Test
+    void generate_SixDigits_TruncatedWithLeadingZeros() {
+        assertThat(Totp.generate(SHA1_SECRET, 1111111109L / 30, 6, "HmacSHA1")).isEqualTo("081804");
+    }
+
+    @Test
+    void base32_Rfc4648TestVectors() {
+        assertThat(Totp.base32("f".getBytes(StandardCharsets.US_ASCII))).isEqualTo("MY");
+        assertThat(Totp.base32("fooba".getBytes(StandardCharsets.US_ASCII))).isEqualTo("MZXW6YTB");
+        assertThat(Totp.base32("foobar".getBytes(StandardCharsets.US_ASCII))).isEqualTo("MZXW6YTBOI");
+    }
+
+}
\ No newline at end of file